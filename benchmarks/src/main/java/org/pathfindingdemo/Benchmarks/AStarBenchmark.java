@@ -0,0 +1,67 @@
+package org.pathfindingdemo.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pathfindingdemo.AStar.AStar;
+import org.pathfindingdemo.AStar.Connectivity;
+import org.pathfindingdemo.AStar.Heuristic;
+import org.pathfindingdemo.AStar.MapData;
+import org.pathfindingdemo.AStar.Path;
+import org.pathfindingdemo.AStar.SearchGrid;
+import org.pathfindingdemo.AStar.SearchWorkspace;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.concurrent.TimeUnit;
+
+// AStar run to the end, corner to corner on generated maps. Building the grid, the workspace and the landmarks
+// happens once per trial and isn't measured.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AStarBenchmark {
+    @Param({"open", "maze", "random"})
+    public String mapKind;
+
+    @Param({"64", "256", "1024", "4096"})
+    public int size;
+
+    @Param({"Dijkstra", "Manhattan", "Euclidean", "Diagonal", "Landmarks"})
+    public String heuristic;
+
+    private SearchGrid grid;
+    private Heuristic searchHeuristic;
+    private SearchWorkspace workspace;
+    private Pair startPos;
+    private Pair endPos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapData mapData = BenchmarkMaps.generate(mapKind, size);
+        grid = new SearchGrid(mapData.getGrid());
+        searchHeuristic = BenchmarkMaps.heuristic(heuristic, grid, Connectivity.EIGHT);
+        workspace = new SearchWorkspace(grid.getSize());
+        startPos = mapData.getStartPos();
+        endPos = mapData.getEndPos();
+    }
+
+    @Benchmark
+    public Path search(SearchCounters counters) {
+        AStar aStar = new AStar(startPos, endPos, grid, searchHeuristic, Connectivity.EIGHT, workspace);
+        aStar.iterate(Integer.MAX_VALUE);
+        counters.set(aStar.getStats());
+        return aStar.getPath();
+    }
+}
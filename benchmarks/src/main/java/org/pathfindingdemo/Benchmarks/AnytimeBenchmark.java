@@ -0,0 +1,102 @@
+package org.pathfindingdemo.Benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pathfindingdemo.AStar.AStar;
+import org.pathfindingdemo.AStar.AnytimeAStar;
+import org.pathfindingdemo.AStar.Connectivity;
+import org.pathfindingdemo.AStar.Heuristics;
+import org.pathfindingdemo.AStar.MapData;
+import org.pathfindingdemo.AStar.Path;
+import org.pathfindingdemo.AStar.SearchGrid;
+import org.pathfindingdemo.AStar.SearchWorkspace;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.concurrent.TimeUnit;
+
+// Speed against path quality, corner to corner with Diagonal distance. Plain and weighted AStar run to the end,
+// ARA* gets one millisecond. The report has the cost of the path and how far from optimal it can be at most.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class AnytimeBenchmark {
+    private final static long ARA_BUDGET_NANOS = 1000000;
+
+    @Param({"open", "maze", "random"})
+    public String mapKind;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"A*", "Weighted 1.5", "Weighted 3", "ARA* 1 ms"})
+    public String mode;
+
+    private SearchGrid grid;
+    private SearchWorkspace workspace;
+    private Pair startPos;
+    private Pair endPos;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PathCounters {
+        public double pathCost;
+        public double bound;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            pathCost = 0;
+            bound = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapData mapData = BenchmarkMaps.generate(mapKind, size);
+        grid = new SearchGrid(mapData.getGrid());
+        workspace = new SearchWorkspace(grid.getSize());
+        startPos = mapData.getStartPos();
+        endPos = mapData.getEndPos();
+    }
+
+    @Benchmark
+    public Path search(SearchCounters counters, PathCounters pathCounters) {
+        if (mode.equals("ARA* 1 ms")) {
+            AnytimeAStar anytimeAStar = new AnytimeAStar(grid, Heuristics.DIAGONAL, Connectivity.EIGHT, startPos,
+                    endPos, workspace);
+            anytimeAStar.improve(System.nanoTime() + ARA_BUDGET_NANOS);
+            counters.expandedNodes = anytimeAStar.getExpandedCount();
+            pathCounters.pathCost = anytimeAStar.getPath().getCost();
+            pathCounters.bound = anytimeAStar.getBound();
+            return anytimeAStar.getPath();
+        }
+
+        AStar aStar = new AStar(startPos, endPos, grid, Heuristics.DIAGONAL, Connectivity.EIGHT, workspace);
+        switch (mode) {
+            case "Weighted 1.5":
+                aStar.setHeuristicWeight(1.5);
+                break;
+            case "Weighted 3":
+                aStar.setHeuristicWeight(3);
+                break;
+        }
+        aStar.iterate(Integer.MAX_VALUE);
+        counters.set(aStar.getStats());
+        pathCounters.pathCost = aStar.getPath().getCost();
+        pathCounters.bound = aStar.getHeuristicWeight();
+        return aStar.getPath();
+    }
+}
@@ -0,0 +1,138 @@
+package org.pathfindingdemo.Benchmarks;
+
+import org.pathfindingdemo.AStar.CellType;
+import org.pathfindingdemo.AStar.CompactGrid;
+import org.pathfindingdemo.AStar.Connectivity;
+import org.pathfindingdemo.AStar.Heuristic;
+import org.pathfindingdemo.AStar.Heuristics;
+import org.pathfindingdemo.AStar.LandmarkHeuristic;
+import org.pathfindingdemo.AStar.MapData;
+import org.pathfindingdemo.AStar.SearchGrid;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.io.File;
+import java.util.Random;
+
+/* #######################
+ * # Class BenchmarkMaps #
+ * #######################
+ * Maps and heuristics shared by the benchmarks. Generated maps are seeded by their size, so every run searches
+ * the same cells. The start is the top left corner and the end the bottom right one.
+ *     open   - only normal cells
+ *     maze   - a maze with corridors one cell wide, and a few walls knocked out so there is more than one way
+ *     random - 25% walls and 10% slow cells, scattered
+ */
+public final class BenchmarkMaps {
+    public final static String DEMO_MAPS_PROPERTY = "pathfinding.demoMaps";
+
+    private BenchmarkMaps() {
+    }
+
+    public static MapData generate(String kind, int size) {
+        CompactGrid grid = new CompactGrid(size, size);
+        Random random = new Random(size);
+        int last = size - 1;
+        switch (kind) {
+            case "open":
+                break;
+            case "maze":
+                carveMaze(grid, random);
+                // The maze only has cells on even coordinates.
+                last = (size - 1) & ~1;
+                break;
+            case "random":
+                for (int y = 0; y < size; y++) {
+                    for (int x = 0; x < size; x++) {
+                        double roll = random.nextDouble();
+                        if (roll < 0.25)
+                            grid.setCell(x, y, CellType.IMPASSABLE);
+                        else if (roll < 0.35)
+                            grid.setCell(x, y, CellType.OBSTACLE);
+                    }
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown map kind " + kind);
+        }
+
+        grid.setCell(0, 0, CellType.NORMAL);
+        grid.setCell(last, last, CellType.NORMAL);
+        return new MapData(new Pair(0, 0), new Pair(last, last), grid);
+    }
+
+    // Depth first maze on the even coordinates, walls on the odd ones in between.
+    private static void carveMaze(CompactGrid grid, Random random) {
+        int size = grid.getMapWidth();
+        int cells = (size + 1) / 2;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                grid.setCell(x, y, CellType.IMPASSABLE);
+            }
+        }
+
+        boolean[] visited = new boolean[cells * cells];
+        int[] stack = new int[cells * cells];
+        int[] order = {0, 1, 2, 3};
+        int top = 0;
+        stack[top++] = 0;
+        visited[0] = true;
+        grid.setCell(0, 0, CellType.NORMAL);
+        while (top > 0) {
+            int cell = stack[top - 1];
+            int cellX = cell % cells;
+            int cellY = cell / cells;
+            for (int i = 3; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+
+            boolean moved = false;
+            for (int direction : order) {
+                int nextX = cellX + Connectivity.FOUR.getXOffset(direction);
+                int nextY = cellY + Connectivity.FOUR.getYOffset(direction);
+                if (nextX < 0 || nextY < 0 || nextX >= cells || nextY >= cells || visited[nextY * cells + nextX])
+                    continue;
+
+                visited[nextY * cells + nextX] = true;
+                grid.setCell(cellX + nextX, cellY + nextY, CellType.NORMAL); // The wall between the two cells
+                grid.setCell(2 * nextX, 2 * nextY, CellType.NORMAL);
+                stack[top++] = nextY * cells + nextX;
+                moved = true;
+                break;
+            }
+            if (!moved)
+                top--;
+        }
+
+        // Knock out 5% of the walls between two corridors.
+        for (int y = 0; y < size; y++) {
+            for (int x = (y + 1) & 1; x < size; x += 2) {
+                if (random.nextDouble() < 0.05)
+                    grid.setCell(x, y, CellType.NORMAL);
+            }
+        }
+    }
+
+    public static File demoMap(String name) {
+        return new File(System.getProperty(DEMO_MAPS_PROPERTY, "Demo Maps"), name);
+    }
+
+    public static Heuristic heuristic(String name, SearchGrid grid, Connectivity connectivity) {
+        switch (name) {
+            case "Dijkstra":
+                return Heuristics.DIJKSTRA;
+            case "Manhattan":
+                return Heuristics.MANHATTAN;
+            case "Euclidean":
+                return Heuristics.EUCLIDEAN;
+            case "Diagonal":
+                return Heuristics.DIAGONAL;
+            case "Landmarks":
+                return new LandmarkHeuristic(grid, connectivity);
+            default:
+                throw new IllegalArgumentException("Unknown heuristic " + name);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.pathfindingdemo.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pathfindingdemo.AStar.AStar;
+import org.pathfindingdemo.AStar.Connectivity;
+import org.pathfindingdemo.AStar.Heuristic;
+import org.pathfindingdemo.AStar.MapData;
+import org.pathfindingdemo.AStar.Path;
+import org.pathfindingdemo.AStar.SearchGrid;
+import org.pathfindingdemo.AStar.SearchWorkspace;
+import org.pathfindingdemo.Application.MapLoader;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// AStar from start to end of the bundled demo maps, read from the folder in the pathfinding.demoMaps property.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DemoMapBenchmark {
+    @Param({"Dijkstra Only.demomap", "Dijkstra Only Large map.demomap", "Manhattan not shortest path.demomap",
+            "Speed difference manhattan euclidean.demomap"})
+    public String map;
+
+    @Param({"Dijkstra", "Manhattan", "Euclidean", "Diagonal", "Landmarks"})
+    public String heuristic;
+
+    private MapData mapData;
+    private SearchGrid grid;
+    private Heuristic searchHeuristic;
+    private SearchWorkspace workspace;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapData = MapLoader.readDemoMap(BenchmarkMaps.demoMap(map));
+        grid = new SearchGrid(mapData.getGrid());
+        searchHeuristic = BenchmarkMaps.heuristic(heuristic, grid, Connectivity.EIGHT);
+        workspace = new SearchWorkspace(grid.getSize());
+    }
+
+    @Benchmark
+    public Path search(SearchCounters counters) {
+        AStar aStar = new AStar(mapData.getStartPos(), mapData.getEndPos(), grid, searchHeuristic,
+                Connectivity.EIGHT, workspace);
+        aStar.iterate(Integer.MAX_VALUE);
+        counters.set(aStar.getStats());
+        return aStar.getPath();
+    }
+}
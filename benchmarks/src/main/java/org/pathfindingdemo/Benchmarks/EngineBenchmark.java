@@ -0,0 +1,82 @@
+package org.pathfindingdemo.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pathfindingdemo.AStar.BidirectionalAStar;
+import org.pathfindingdemo.AStar.Connectivity;
+import org.pathfindingdemo.AStar.Heuristics;
+import org.pathfindingdemo.AStar.HierarchicalPathFinder;
+import org.pathfindingdemo.AStar.JumpPointSearch;
+import org.pathfindingdemo.AStar.MapData;
+import org.pathfindingdemo.AStar.Path;
+import org.pathfindingdemo.AStar.PathEngine;
+import org.pathfindingdemo.AStar.PathFinder;
+import org.pathfindingdemo.AStar.SearchGrid;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.concurrent.TimeUnit;
+
+// The PathEngine implementations side by side with the Diagonal heuristic, corner to corner on generated maps.
+// Preprocessing, like the HPA* abstract graph, happens once per trial and isn't measured.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class EngineBenchmark {
+    @Param({"PathFinder", "JumpPointSearch", "BidirectionalAStar", "HierarchicalPathFinder"})
+    public String engine;
+
+    @Param({"open", "maze", "random"})
+    public String mapKind;
+
+    @Param({"256", "1024", "4096"})
+    public int size;
+
+    private PathEngine pathEngine;
+    private Pair startPos;
+    private Pair endPos;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MapData mapData = BenchmarkMaps.generate(mapKind, size);
+        SearchGrid grid = new SearchGrid(mapData.getGrid());
+        startPos = mapData.getStartPos();
+        endPos = mapData.getEndPos();
+        switch (engine) {
+            case "PathFinder":
+                pathEngine = new PathFinder(grid, Heuristics.DIAGONAL, Connectivity.EIGHT);
+                break;
+            case "JumpPointSearch":
+                pathEngine = new JumpPointSearch(grid, Heuristics.DIAGONAL);
+                break;
+            case "BidirectionalAStar":
+                pathEngine = new BidirectionalAStar(grid, Heuristics.DIAGONAL, Connectivity.EIGHT);
+                break;
+            case "HierarchicalPathFinder":
+                pathEngine = new HierarchicalPathFinder(grid, Heuristics.DIAGONAL, Connectivity.EIGHT,
+                        HierarchicalPathFinder.DEFAULT_CLUSTER_SIZE);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown engine " + engine);
+        }
+    }
+
+    @Benchmark
+    public Path search(SearchCounters counters) {
+        Path path = pathEngine.findPath(startPos, endPos);
+        counters.expandedNodes = path.getExpandedCount();
+        return path;
+    }
+}
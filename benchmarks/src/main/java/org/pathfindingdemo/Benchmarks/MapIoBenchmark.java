@@ -0,0 +1,125 @@
+package org.pathfindingdemo.Benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pathfindingdemo.AStar.CellGrid;
+import org.pathfindingdemo.AStar.CompactGrid;
+import org.pathfindingdemo.AStar.MapData;
+import org.pathfindingdemo.AStar.MappedMap;
+import org.pathfindingdemo.AStar.RunLengthMap;
+import org.pathfindingdemo.Application.MapLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Saving and loading maps in every file format. Loading ends with the cells in a CompactGrid, which is what the
+// application does with a loaded map. Demomap files can't hold more than 255x255 cells, so they get a state of
+// their own.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MapIoBenchmark {
+
+    @State(Scope.Thread)
+    public static class LargeMap {
+        @Param({"pfmap", "pfrle", "pfrle-deflated"})
+        public String format;
+
+        @Param({"open", "maze", "random"})
+        public String mapKind;
+
+        @Param({"1024", "4096"})
+        public int size;
+
+        MapData mapData;
+        File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            mapData = BenchmarkMaps.generate(mapKind, size);
+            file = Files.createTempFile("benchmark", "." + format).toFile();
+            save(this);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DemoMap {
+        @Param({"open", "maze", "random"})
+        public String mapKind;
+
+        MapData mapData;
+        File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            mapData = BenchmarkMaps.generate(mapKind, 255);
+            file = Files.createTempFile("benchmark", ".demomap").toFile();
+            MapLoader.writeDemoMap(file, mapData);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            file.delete();
+        }
+    }
+
+    private static void save(LargeMap map) throws IOException {
+        switch (map.format) {
+            case "pfmap":
+                MappedMap.write(map.file, map.mapData);
+                break;
+            case "pfrle":
+                RunLengthMap.write(map.file, map.mapData, false);
+                break;
+            case "pfrle-deflated":
+                RunLengthMap.write(map.file, map.mapData, true);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format " + map.format);
+        }
+    }
+
+    @Benchmark
+    public File saveLarge(LargeMap map) throws IOException {
+        save(map);
+        return map.file;
+    }
+
+    @Benchmark
+    public CellGrid loadLarge(LargeMap map) throws IOException {
+        if (map.format.equals("pfmap"))
+            return CompactGrid.copyOf(MappedMap.open(map.file));
+        return RunLengthMap.read(map.file).getGrid();
+    }
+
+    @Benchmark
+    public File saveDemoMap(DemoMap map) throws IOException {
+        MapLoader.writeDemoMap(map.file, map.mapData);
+        return map.file;
+    }
+
+    @Benchmark
+    public CellGrid loadDemoMap(DemoMap map) throws IOException {
+        return MapLoader.readDemoMap(map.file).getGrid();
+    }
+}
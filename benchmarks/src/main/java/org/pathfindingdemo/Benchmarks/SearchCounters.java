@@ -0,0 +1,32 @@
+package org.pathfindingdemo.Benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pathfindingdemo.AStar.SearchStats;
+
+// Extra columns in the JMH report. Every search in a trial is the same query, so the count of the last one is set
+// instead of summed and the report shows the nodes expanded by one search. Only AStar searches fill in the
+// reopened and peak open counts.
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class SearchCounters {
+    public long expandedNodes;
+    public long reopenedNodes;
+    public long peakOpenNodes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        expandedNodes = 0;
+        reopenedNodes = 0;
+        peakOpenNodes = 0;
+    }
+
+    void set(SearchStats stats) {
+        expandedNodes = stats.getExpandedCount();
+        reopenedNodes = stats.getReopenedCount();
+        peakOpenNodes = stats.getPeakOpenCount();
+    }
+}
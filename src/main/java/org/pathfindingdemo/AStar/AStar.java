@@ -1,286 +1,364 @@
 package org.pathfindingdemo.AStar;
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.paint.Color;
+import org.pathfindingdemo.Helpers.IndexedMinHeap;
+import org.pathfindingdemo.Helpers.Pair;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.PriorityQueue;
+import java.util.Arrays;
+import java.util.Collections;
 
-import javafx.scene.text.Font;
-import org.pathfindingdemo.Helpers.Pair;
+import static org.pathfindingdemo.AStar.SearchWorkspace.CLOSED;
+import static org.pathfindingdemo.AStar.SearchWorkspace.NO_PARENT;
+import static org.pathfindingdemo.AStar.SearchWorkspace.OPEN;
 
-public class AStar {
+public class AStar implements SearchView {
     public final static double DIAGONAL_COST_FACTOR = 1.41421356237; // it costs more to travel diagonally, sqrt(2).
     public final static double NORMAL_WEIGHT = 1.;
     public final static double OBSTACLE_WEIGHT = 1.5;
+    private final static int ITERATIONS_PER_CLOCK_CHECK = 32;
 
-    private enum State {
+    public enum State {
         SEARCHING,
         PATH_FOUND,
         NO_PATH_FOUND
     }
 
-    private Node[][] nodes;
-    private Pair dimensions;
-    private PriorityQueue<Node> openNodes;
-    private HashSet<Node> closedNodes;
-    private Node initialNode;
-    private Node endNode;
+    // Search state lives in the workspace, one slot per SearchGrid index.
+    // f: the total estimated from the start node to the end node through this node.
+    // f = g + h
+    // The open list is ordered by g + w * h, w is the heuristic weight and 1 unless set otherwise.
+    // h isn't kept. The key of an open node minus g is w * h, so h is only calculated again when a closed node is
+    // reopened.
+    private SearchWorkspace workspace;
+    private double[] g;
+    private int[] parents;
+
+    private SearchGrid grid;
+    private int[] neighborOffsets;
+    private double[] stepCosts;
+    private IndexedMinHeap openNodes; // Keyed by node index, the key is g + w * h.
+    private int initialNode;
+    private int endNode;
+    private double initialH;
+    private Pair startPos;
+    private Pair endPos;
+    private Connectivity connectivity;
 
     private Heuristic heuristic;
+    private double heuristicWeight = 1;
     private State state;
+    private SearchListener listener;
+
+    // Stats, see SearchStats.
+    private int expandedCount;
+    private int reopenedCount;
+    private int peakOpenCount;
+    private long heapOperationCount;
+    private int heuristicCount;
+    private long searchNanos;
+
+    // Nodes whose flag, g or parent changed, in the order they changed. null unless changes are tracked.
+    private int[] changedNodes;
+    private int changedNodeCount;
+
+    private SearchTrace.Recorder recorder; // null unless the search is recorded.
+
+    // h is only calculated for nodes the search actually reaches.
+    private double calculateH(int node) {
+        heuristicCount++;
+        return heuristic.calculate(grid.xOf(node), grid.yOf(node), endPos.getX(), endPos.getY());
+    }
 
-    private void initNodes(CellType[][] grid, Pair endPos) {
-        nodes = new Node[dimensions.getX()][dimensions.getY()];
-        for (int x = 0; x < dimensions.getX(); x++) {
-            for (int y = 0; y < dimensions.getY(); y++) {
-                switch (grid[x][y]) {
-                    case NORMAL:
-                        nodes[x][y] = new Node(new Pair(x, y), NORMAL_WEIGHT, endPos);
-                        break;
-                    case OBSTACLE:
-                        nodes[x][y] = new Node(new Pair(x, y), OBSTACLE_WEIGHT, endPos);
-                        break;
-                    case IMPASSABLE:
-                        // Node is null
-                }
-            }
-        }
+    private void nodeChanged(int node) {
+        if (changedNodes == null)
+            return;
+
+        if (changedNodeCount == changedNodes.length)
+            changedNodes = Arrays.copyOf(changedNodes, changedNodeCount * 2);
+        changedNodes[changedNodeCount++] = node;
     }
 
-    private ArrayList<Node> getNeighboringNodes(Node node) {
-        ArrayList<Node> neighNodes = new ArrayList<>();
-        for (int xOffset = -1; xOffset <= 1; xOffset++) {
-            for (int yOffset = -1; yOffset <= 1; yOffset++) {
-                Pair neighPos = new Pair(xOffset + node.pos.getX(), yOffset + node.pos.getY());
-                // No node out of bounds
-                if (neighPos.getX() < 0 || neighPos.getY() < 0 ||
-                        neighPos.getX() >= dimensions.getX() || neighPos.getY() >= dimensions.getY())
-                    continue;
-                // Add only adjacent nodes
-                if (neighPos.equals(node.pos))
-                    continue;
-
-                Node neighNode = nodes[neighPos.getX()][neighPos.getY()];
-                // No node found/blocked space
-                if (neighNode == null)
-                    continue;
-
-                neighNodes.add(neighNode);
-            }
-        }
-        return neighNodes;
-    }
-
-    private ArrayList<Node> getNeighboringNodes4(Node node) {
-        ArrayList<Node> neighNodes = new ArrayList<>();
-        for (int xOffset = -1; xOffset <= 1; xOffset++) {
-            for (int yOffset = -1; yOffset <= 1; yOffset++) {
-                Pair neighPos = new Pair(xOffset + node.pos.getX(), yOffset + node.pos.getY());
-
-                if (!(node.pos.getX() == neighPos.getX() || node.pos.getY() == neighPos.getY()))
-                    continue;
-                // No node out of bounds
-                if (neighPos.getX() < 0 || neighPos.getY() < 0 ||
-                        neighPos.getX() >= dimensions.getX() || neighPos.getY() >= dimensions.getY())
-                    continue;
-                // Add only adjacent nodes
-                if (neighPos.equals(node.pos))
-                    continue;
-
-                Node neighNode = nodes[neighPos.getX()][neighPos.getY()];
-                // No node found/blocked space
-                if (neighNode == null)
-                    continue;
-
-                neighNodes.add(neighNode);
-            }
-        }
-        return neighNodes;
+    private void addOpenNode(int node, double nodeH) {
+        workspace.setFlag(node, OPEN);
+        openNodes.add(node, getKey(node, nodeH));
+        heapOperationCount++;
     }
 
     public AStar (Pair startPos, Pair endPos, Pair dimensions, Heuristic heuristic, CellType[][] grid) {
-        this.dimensions = dimensions;
+        this(startPos, endPos, new SearchGrid(grid, dimensions.getX(), dimensions.getY()), heuristic,
+                Connectivity.EIGHT, null);
+    }
+
+    // The workspace is taken over by this search, any earlier search using it must be abandoned.
+    // A new workspace is created if it is null.
+    public AStar (Pair startPos, Pair endPos, SearchGrid grid, Heuristic heuristic, Connectivity connectivity,
+                  SearchWorkspace workspace) {
+        this.grid = grid;
         this.heuristic = heuristic;
+        this.startPos = startPos;
+        this.endPos = endPos;
+        this.connectivity = connectivity;
         state = State.SEARCHING;
 
-        initNodes(grid, endPos);
-        initialNode = nodes[startPos.getX()][startPos.getY()];
-        endNode = nodes[endPos.getX()][endPos.getY()];
+        if (workspace == null)
+            workspace = new SearchWorkspace(grid.getSize());
+        if (workspace.getCapacity() < grid.getSize())
+            throw new IllegalArgumentException("Workspace is too small for the grid");
+
+        this.workspace = workspace;
+        g = workspace.g;
+        parents = workspace.parents;
+        openNodes = workspace.openNodes;
+        workspace.begin();
 
-        openNodes = new PriorityQueue<Node>((Node n1, Node n2) -> {
-            return Double.compare(n1.getF(), n2.getF());
-        });
-        closedNodes = new HashSet<>();
+        neighborOffsets = grid.getOffsets(connectivity);
+        stepCosts = grid.getStepCosts(connectivity);
+        initialNode = grid.indexOf(startPos.getX(), startPos.getY());
+        endNode = grid.indexOf(endPos.getX(), endPos.getY());
 
         // Prepare for search
-        openNodes.add(initialNode);
+        if (grid.isPassable(initialNode)) {
+            workspace.reach(initialNode);
+            initialH = calculateH(initialNode);
+            addOpenNode(initialNode, initialH);
+            peakOpenCount = 1;
+        }
     }
 
     public boolean iterate() {
+        return iterate(1);
+    }
+
+    // Expands up to maxIterations nodes, stopping early when the search ends. Returns false if the search had
+    // already ended before the call.
+    public boolean iterate(int maxIterations) {
+        return iterate(maxIterations, 0, false);
+    }
+
+    // Like iterate(maxIterations), but also stops once System.nanoTime() has passed the deadline. The clock is only
+    // read every few iterations, so a call always does a few and can run a little over the deadline.
+    public boolean iterate(int maxIterations, long deadline) {
+        return iterate(maxIterations, deadline, true);
+    }
+
+    private boolean iterate(int maxIterations, long deadline, boolean hasDeadline) {
         if (state == State.PATH_FOUND || state == State.NO_PATH_FOUND)
             return false;
 
+        long startTime = System.nanoTime();
+        for (int i = 1; i <= maxIterations && state == State.SEARCHING; i++) {
+            expandNextNode();
+            if (hasDeadline && i % ITERATIONS_PER_CLOCK_CHECK == 0 && System.nanoTime() - deadline >= 0)
+                break;
+        }
+        searchNanos += System.nanoTime() - startTime;
+
+        if (state != State.SEARCHING && listener != null)
+            listener.searchFinished(getStats());
+
+        // Return true if the algorithm was still searching.
+        return true;
+    }
+
+    private void expandNextNode() {
         if (!openNodes.isEmpty()) {
-            Node currentNode = openNodes.poll();
-            closedNodes.add(currentNode);
-            if (currentNode.pos.equals(endNode.pos)) {
+            int currentNode = openNodes.poll();
+            heapOperationCount++;
+            workspace.setFlag(currentNode, CLOSED);
+            nodeChanged(currentNode);
+            if (recorder != null)
+                recorder.expanded(currentNode);
+            expandedCount++;
+            if (currentNode == endNode) {
                 state = State.PATH_FOUND;
             } else {
-                ArrayList<Node> neighNodes = getNeighboringNodes(currentNode);
-                for (Node neighNode : neighNodes) {
-                    if (openNodes.contains(neighNode)) {
-                        if (neighNode.calculateG(currentNode) < neighNode.getG()) {
-                            neighNode.setParentAndG(currentNode);
-                            openNodes.remove(neighNode);
-                            openNodes.add(neighNode);
-                        }
-                    }
-                    else if (closedNodes.contains(neighNode)) {
-                        if (neighNode.calculateG(currentNode) < neighNode.getG()) {
-                            neighNode.setParentAndG(currentNode);
-                            closedNodes.remove(neighNode);
-                            openNodes.add(neighNode);
-                        }
-                    }
-                    else {
-                        neighNode.setParentAndG(currentNode);
-                        openNodes.add(neighNode);
+                // The border around the grid is impassable, so no bounds checks are needed.
+                double currentG = g[currentNode];
+                for (int i = 0; i < neighborOffsets.length; i++) {
+                    int neighNode = currentNode + neighborOffsets[i];
+                    double weight = grid.getWeight(neighNode);
+                    // Blocked space
+                    if (weight == 0)
+                        continue;
+
+                    double neighG = currentG + weight * stepCosts[i];
+                    switch (workspace.getFlag(neighNode)) {
+                        case OPEN:
+                            if (neighG < g[neighNode]) {
+                                // The key drops by as much as g does, h stays the same.
+                                double key = openNodes.getKey(neighNode) - (g[neighNode] - neighG);
+                                parents[neighNode] = currentNode;
+                                g[neighNode] = neighG;
+                                openNodes.decreaseKey(neighNode, key);
+                                heapOperationCount++;
+                                nodeChanged(neighNode);
+                                if (recorder != null)
+                                    recorder.updated(i);
+                            }
+                            break;
+                        case CLOSED:
+                            if (neighG < g[neighNode]) {
+                                parents[neighNode] = currentNode;
+                                g[neighNode] = neighG;
+                                addOpenNode(neighNode, calculateH(neighNode));
+                                nodeChanged(neighNode);
+                                reopenedCount++;
+                                if (recorder != null)
+                                    recorder.reopened(i);
+                            }
+                            break;
+                        default:
+                            workspace.reach(neighNode);
+                            double neighH = calculateH(neighNode);
+                            parents[neighNode] = currentNode;
+                            g[neighNode] = neighG;
+                            addOpenNode(neighNode, neighH);
+                            nodeChanged(neighNode);
+                            if (recorder != null)
+                                recorder.opened(i, neighH);
                     }
                 }
+                peakOpenCount = Math.max(peakOpenCount, openNodes.size());
             }
         } else {
             state = State.NO_PATH_FOUND;
         }
+    }
 
-        // Return true if the algorithm is still searching.
-        return true;
+    public State getState() {
+        return state;
     }
 
-    public void drawNormal(GraphicsContext g2d, int gridSide) {
-        {
-            for (Node currentNode : openNodes) {
-                g2d.setFill(Color.GRAY);
-                g2d.fillRect(currentNode.pos.getX() * gridSide, currentNode.pos.getY() * gridSide,
-                        gridSide, gridSide);
-            }
-            for (Node currentNode : closedNodes) {
-                g2d.setFill(Color.LIGHTGRAY);
-                g2d.fillRect(currentNode.pos.getX() * gridSide, currentNode.pos.getY() * gridSide,
-                        gridSide, gridSide);
-            }
-        }
-        if (state == State.PATH_FOUND) {
-            Node currentNode = endNode;
-            g2d.setLineWidth(4.0);
-            while (currentNode != null) {
-                if (currentNode.parent == null)
-                    break;
-                g2d.setStroke(Color.RED);
-                g2d.strokeLine(currentNode.pos.getX() * gridSide + gridSide / 2, currentNode.pos.getY() * gridSide + gridSide / 2,
-                        currentNode.parent.pos.getX() * gridSide + gridSide / 2, currentNode.parent.pos.getY() * gridSide + gridSide / 2);
-                currentNode = currentNode.parent;
-            }
-            g2d.setLineWidth(1.0);
-        }
-        else {
-            g2d.setFill(Color.BLUE);
-            g2d.fillRect(openNodes.peek().pos.getX() * gridSide, openNodes.peek().pos.getY() * gridSide,
-                    gridSide, gridSide);
-        }
+    public SearchGrid getGrid() {
+        return grid;
     }
 
-    public void drawF(GraphicsContext g2d, int gridSide) {
-        // Draw F value
-        for (Node n : openNodes) {
-            g2d.setFill(Color.BLACK);
-            g2d.setFont(new Font(20));
-            String rounded = String.format("%.1f", n.getF());
-            g2d.fillText(rounded, 3 + n.pos.getX() * gridSide, 20 + n.pos.getY() * gridSide);
-        }
-        for (Node n : closedNodes) {
-            g2d.setFill(Color.BLACK);
-            g2d.setFont(new Font(20));
-            String rounded = String.format("%.1f", n.getF());
-            g2d.fillText(rounded, 3 + n.pos.getX() * gridSide, 20 + n.pos.getY() * gridSide);
-        }
+    public int getExpandedCount() {
+        return expandedCount;
     }
 
-    public void drawPaths(GraphicsContext g2d, int gridSide) {
-        g2d.setLineWidth(2.0);
-        for (int x = 0; x < dimensions.getX(); x++) {
-            for (int y = 0; y < dimensions.getY(); y++) {
-                Node n = nodes[x][y];
-                if (n == null)
-                    continue;
-                if (n.parent == null)
-                    continue;
+    // Can be asked at any time, also while the search is still running.
+    public SearchStats getStats() {
+        return new SearchStats(state, expandedCount, reopenedCount, peakOpenCount, heapOperationCount,
+                heuristicCount, searchNanos);
+    }
 
-                g2d.setStroke(Color.DARKGRAY);
-                g2d.strokeLine(n.pos.getX() * gridSide + gridSide / 2, n.pos.getY() * gridSide + gridSide / 2,
-                        n.parent.pos.getX() * gridSide + gridSide / 2, n.parent.pos.getY() * gridSide + gridSide / 2);
-            }
-        }
-        g2d.setLineWidth(1.0);
-        if (state == State.PATH_FOUND) {
-            Node currentNode = endNode;
-            g2d.setLineWidth(4.0);
-            while (currentNode != null) {
-                if (currentNode.parent == null)
-                    break;
-                g2d.setStroke(Color.RED);
-                g2d.strokeLine(currentNode.pos.getX() * gridSide + gridSide / 2, currentNode.pos.getY() * gridSide + gridSide / 2,
-                        currentNode.parent.pos.getX() * gridSide + gridSide / 2, currentNode.parent.pos.getY() * gridSide + gridSide / 2);
-                currentNode = currentNode.parent;
-            }
-            g2d.setLineWidth(1.0);
-        }
+    // Told once, by the iterate() call that ends the search. null for none.
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
     }
 
-    private class Node {
-        // g: the cost of the path from start to this node
-        // h: the estimated cost from this node to the end node.
-        // f: the total estimated from the start node to the end node through this node.
-        // f = g + h
-        double g;
-        double h;
-        Pair pos;
-        double weight;
-        Node parent; // The previous best scoring node.
-
-        Node (Pair pos, double weight, Pair endPos) {
-            this.pos = pos;
-            this.weight = weight;
-            g = 0; // Is calculated when this node is reached by the search.
-            h = heuristic.calculate(pos, endPos);
-            parent = null;
-        }
+    public int getOpenNodeCount() {
+        return openNodes.size();
+    }
 
-        public double calculateG(Node parent) {
-            boolean isDiagonal = !(pos.getX() == parent.pos.getX() || pos.getY() == parent.pos.getY());
-            return isDiagonal ? (weight * DIAGONAL_COST_FACTOR) + parent.getG() : weight + parent.getG();
-        }
+    // Open nodes in no particular order, i goes from 0 to getOpenNodeCount() - 1.
+    public int getOpenNode(int i) {
+        return openNodes.get(i);
+    }
 
-        public void setParentAndG(Node parent) {
-            this.parent = parent;
-            g = calculateG(parent);
-        }
+    // The node the next iterate() will expand, or -1 if there is none.
+    public int getNextNode() {
+        return openNodes.isEmpty() ? -1 : openNodes.peek();
+    }
 
-        public double getG() {
-            return g;
-        }
+    public int getEndNode() {
+        return endNode;
+    }
 
-        public double getH() {
-            return h;
-        }
+    public boolean isReached(int node) {
+        return workspace.isReached(node);
+    }
 
-        public double getF() {
-            return g + h;
-        }
+    public boolean isOpen(int node) {
+        return workspace.getFlag(node) == OPEN;
+    }
+
+    public boolean isClosed(int node) {
+        return workspace.getFlag(node) == CLOSED;
+    }
+
+    // Starts or stops recording which nodes change, for drawing only what changed. Off by default.
+    public void setTrackChanges(boolean trackChanges) {
+        changedNodes = trackChanges ? new int[64] : null;
+        changedNodeCount = 0;
+    }
+
+    // Nodes changed since the last clearChangedNodes(), a node can be listed more than once.
+    public int getChangedNodeCount() {
+        return changedNodeCount;
+    }
+
+    public int getChangedNode(int i) {
+        return changedNodes[i];
+    }
+
+    public void clearChangedNodes() {
+        changedNodeCount = 0;
+    }
+
+    // Weighted A*: a weight above 1 trusts the heuristic more, so fewer nodes are expanded but the path can cost up
+    // to weight times the optimal cost with an admissible heuristic. Has to be set before the first iterate().
+    public void setHeuristicWeight(double heuristicWeight) {
+        if (!(heuristicWeight >= 1))
+            throw new IllegalArgumentException("Heuristic weight must be at least 1");
+        if (expandedCount > 0 || state != State.SEARCHING)
+            throw new IllegalStateException("The search has already started");
+
+        this.heuristicWeight = heuristicWeight;
+        if (!openNodes.isEmpty())
+            openNodes.update(initialNode, getKey(initialNode, initialH));
+    }
+
+    public double getHeuristicWeight() {
+        return heuristicWeight;
+    }
+
+    // Records every step from here on for getTrace(). Has to be called before the first iterate().
+    public void setRecording(boolean recording) {
+        if (expandedCount > 0 || state != State.SEARCHING)
+            throw new IllegalStateException("The search has already started");
+
+        recorder = recording ? new SearchTrace.Recorder(initialNode, initialH) : null;
+    }
+
+    // The search so far. It can go on afterwards, a later getTrace() returns the rest too.
+    public SearchTrace getTrace(String description) {
+        if (recorder == null)
+            throw new IllegalStateException("The search isn't recorded");
+
+        // Giving up takes an iterate() that expands nothing.
+        int iterationCount = expandedCount + (state == State.NO_PATH_FOUND ? 1 : 0);
+        return recorder.toTrace(grid, startPos, endPos, connectivity, description, state, iterationCount);
+    }
+
+    // -1 if the node has no parent or hasn't been reached.
+    public int getParent(int node) {
+        return workspace.isReached(node) ? parents[node] : NO_PARENT;
+    }
+
+    // Unweighted, also with a heuristic weight. Open nodes have h in their key, for the others it's calculated
+    // again and doesn't count as a heuristic call.
+    public double getF(int node) {
+        if (workspace.getFlag(node) == OPEN)
+            return g[node] + (openNodes.getKey(node) - g[node]) / heuristicWeight;
+        return g[node] + heuristic.calculate(grid.xOf(node), grid.yOf(node), endPos.getX(), endPos.getY());
+    }
+
+    private double getKey(int node, double nodeH) {
+        return g[node] + heuristicWeight * nodeH;
+    }
+
+    // The path found so far, empty until the state is PATH_FOUND.
+    public Path getPath() {
+        if (state != State.PATH_FOUND)
+            return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, expandedCount);
 
-        public Pair getPos() {
-            return pos;
+        ArrayList<Pair> cells = new ArrayList<>();
+        for (int node = endNode; node != NO_PARENT; node = parents[node]) {
+            cells.add(new Pair(grid.xOf(node), grid.yOf(node)));
         }
+        Collections.reverse(cells);
+        return new Path(cells, g[endNode], expandedCount);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,301 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.IndexedMinHeap;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.pathfindingdemo.AStar.SearchWorkspace.CLOSED;
+import static org.pathfindingdemo.AStar.SearchWorkspace.NO_PARENT;
+import static org.pathfindingdemo.AStar.SearchWorkspace.OPEN;
+import static org.pathfindingdemo.AStar.SearchWorkspace.UNVISITED;
+
+/* ######################
+ * # Class AnytimeAStar #
+ * ######################
+ * Anytime Repairing A* (ARA*) between a fixed start and end. The first pass is weighted A* with a large heuristic
+ * weight, which finds a path after few expansions. Every pass after that lowers the weight and repairs the search
+ * instead of starting over: g values are kept, and only nodes whose g got better after they were expanded in the
+ * current pass are searched again in the next one. Once a pass with weight 1 ends the path is optimal.
+ *
+ * improve() takes a deadline and can stop in the middle of a pass, the next call goes on where it stopped. After
+ * each pass the best path costs at most getBound() times the optimal cost. The bound needs an admissible heuristic,
+ * like the ones in Heuristics. The search state lives in a SearchWorkspace like for AStar, so starting a query
+ * doesn't cost time proportional to the map size.
+ */
+public class AnytimeAStar {
+    public final static double DEFAULT_INITIAL_WEIGHT = 3;
+    public final static double DEFAULT_WEIGHT_STEP = 0.5;
+    private final static int EXPANSIONS_PER_CLOCK_CHECK = 64;
+
+    // Flags on top of the workspace ones. CLOSED means expanded in the current pass.
+    private final static byte INCONSISTENT = 3; // Closed, and g got better after that. Opened by the next pass.
+    private final static byte SEEN = 4; // Reached, but neither open nor closed in the current pass.
+
+    private final SearchGrid grid;
+    private final Heuristic heuristic;
+    private final int[] neighborOffsets;
+    private final double[] stepCosts;
+    private final Pair endPos;
+    private final int startNode;
+    private final int endNode;
+    private final double weightStep;
+
+    private final SearchWorkspace workspace;
+    private final double[] g;
+    private final int[] parents;
+    private final IndexedMinHeap openNodes; // Keyed by node index, the key is g + weight * h.
+    private int[] closedNodes; // Closed in the current pass, including the inconsistent ones.
+    private int closedCount;
+    private int[] inconsistentNodes;
+    private int inconsistentCount;
+
+    private double weight;
+    private boolean passEnded;
+    private boolean finished;
+    private Path path;
+    private double bound;
+    private int expandedCount;
+
+    public AnytimeAStar(SearchGrid grid, Heuristic heuristic, Connectivity connectivity, Pair startPos, Pair endPos,
+                        SearchWorkspace workspace) {
+        this(grid, heuristic, connectivity, startPos, endPos, workspace, DEFAULT_INITIAL_WEIGHT, DEFAULT_WEIGHT_STEP);
+    }
+
+    // The weight goes down by weightStep after every pass, until it reaches 1. The workspace is taken over like by
+    // AStar, a new one is created if it is null.
+    public AnytimeAStar(SearchGrid grid, Heuristic heuristic, Connectivity connectivity, Pair startPos, Pair endPos,
+                        SearchWorkspace workspace, double initialWeight, double weightStep) {
+        if (!grid.isInside(startPos.getX(), startPos.getY()) || !grid.isInside(endPos.getX(), endPos.getY()))
+            throw new IllegalArgumentException("Start or end position is outside the grid");
+        if (!(initialWeight >= 1) || !(weightStep > 0))
+            throw new IllegalArgumentException("Initial weight must be at least 1 and the weight step positive");
+
+        this.grid = grid;
+        this.heuristic = heuristic;
+        this.endPos = endPos;
+        this.weightStep = weightStep;
+        neighborOffsets = grid.getOffsets(connectivity);
+        stepCosts = grid.getStepCosts(connectivity);
+
+        if (workspace == null)
+            workspace = new SearchWorkspace(grid.getSize());
+        if (workspace.getCapacity() < grid.getSize())
+            throw new IllegalArgumentException("Workspace is too small for the grid");
+
+        this.workspace = workspace;
+        g = workspace.g;
+        parents = workspace.parents;
+        openNodes = workspace.openNodes;
+        workspace.begin();
+        closedNodes = new int[64];
+        inconsistentNodes = new int[64];
+
+        startNode = grid.indexOf(startPos.getX(), startPos.getY());
+        endNode = grid.indexOf(endPos.getX(), endPos.getY());
+        weight = initialWeight;
+        path = new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, 0);
+        bound = Double.POSITIVE_INFINITY;
+
+        if (grid.isPassable(startNode)) {
+            workspace.reach(startNode);
+            workspace.setFlag(startNode, OPEN);
+            openNodes.add(startNode, getKey(startNode));
+        } else {
+            finished = true;
+        }
+    }
+
+    // Not kept in the workspace, calculated again whenever it's needed.
+    private double calculateH(int node) {
+        return heuristic.calculate(grid.xOf(node), grid.yOf(node), endPos.getX(), endPos.getY());
+    }
+
+    private double getKey(int node) {
+        return g[node] + weight * calculateH(node);
+    }
+
+    // Infinite if the node hasn't been reached.
+    private double getG(int node) {
+        return workspace.isReached(node) ? g[node] : Double.POSITIVE_INFINITY;
+    }
+
+    private static int[] push(int[] nodes, int count, int node) {
+        if (count == nodes.length)
+            nodes = Arrays.copyOf(nodes, count * 2);
+        nodes[count] = node;
+        return nodes;
+    }
+
+    // Searches until the deadline, a System.nanoTime() value, has passed or the path is optimal. Always does a few
+    // expansions, even if the deadline has already passed. Returns false once there is nothing left to improve.
+    public boolean improve(long deadline) {
+        int untilClockCheck = EXPANSIONS_PER_CLOCK_CHECK;
+        while (!finished) {
+            if (passEnded)
+                startNextPass();
+            if (!expandNextNode())
+                endPass();
+
+            if (--untilClockCheck == 0) {
+                if (System.nanoTime() - deadline >= 0)
+                    break;
+                untilClockCheck = EXPANSIONS_PER_CLOCK_CHECK;
+            }
+        }
+        return !finished;
+    }
+
+    // Runs every pass, for when there is no deadline.
+    public Path improveToOptimal() {
+        while (!finished) {
+            if (passEnded)
+                startNextPass();
+            if (!expandNextNode())
+                endPass();
+        }
+        return path;
+    }
+
+    // Returns false when the pass is over: nothing in the open list could lead to a better path with this weight.
+    private boolean expandNextNode() {
+        if (openNodes.isEmpty() || !(getG(endNode) > openNodes.peekKey()))
+            return false;
+
+        int currentNode = openNodes.poll();
+        workspace.setFlag(currentNode, CLOSED);
+        closedNodes = push(closedNodes, closedCount++, currentNode);
+        expandedCount++;
+
+        // The border around the grid is impassable, so no bounds checks are needed.
+        double currentG = g[currentNode];
+        for (int i = 0; i < neighborOffsets.length; i++) {
+            int neighNode = currentNode + neighborOffsets[i];
+            double neighWeight = grid.getWeight(neighNode);
+            if (neighWeight == 0)
+                continue;
+
+            double neighG = currentG + neighWeight * stepCosts[i];
+            byte flag = workspace.getFlag(neighNode);
+            if (flag == UNVISITED)
+                workspace.reach(neighNode);
+            else if (!(neighG < g[neighNode]))
+                continue;
+
+            g[neighNode] = neighG;
+            parents[neighNode] = currentNode;
+            switch (flag) {
+                case OPEN:
+                    openNodes.decreaseKey(neighNode, getKey(neighNode));
+                    break;
+                case CLOSED:
+                    workspace.setFlag(neighNode, INCONSISTENT);
+                    inconsistentNodes = push(inconsistentNodes, inconsistentCount++, neighNode);
+                    break;
+                case INCONSISTENT:
+                    break;
+                default:
+                    workspace.setFlag(neighNode, OPEN);
+                    openNodes.add(neighNode, getKey(neighNode));
+            }
+        }
+        return true;
+    }
+
+    private void endPass() {
+        passEnded = true;
+        if (getG(endNode) == Double.POSITIVE_INFINITY) {
+            // The open list ran empty without reaching the end.
+            finished = true;
+            return;
+        }
+
+        path = buildPath();
+
+        // No node left to search can lead to a path cheaper than the lowest f among them.
+        double lowestF = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < openNodes.size(); i++) {
+            int node = openNodes.get(i);
+            lowestF = Math.min(lowestF, g[node] + calculateH(node));
+        }
+        for (int i = 0; i < inconsistentCount; i++) {
+            int node = inconsistentNodes[i];
+            lowestF = Math.min(lowestF, g[node] + calculateH(node));
+        }
+        bound = lowestF >= path.getCost() ? 1 : Math.max(1, Math.min(weight, path.getCost() / lowestF));
+        if (weight == 1 || bound == 1)
+            finished = true;
+    }
+
+    private void startNextPass() {
+        weight = Math.max(1, weight - weightStep);
+
+        // Everything open or inconsistent goes into a fresh open list, ordered by the new weight.
+        int[] nodes = Arrays.copyOf(inconsistentNodes, inconsistentCount + openNodes.size());
+        for (int i = 0; i < openNodes.size(); i++) {
+            nodes[inconsistentCount + i] = openNodes.get(i);
+        }
+        openNodes.clear();
+        for (int node : nodes) {
+            workspace.setFlag(node, OPEN);
+            openNodes.add(node, getKey(node));
+        }
+        inconsistentCount = 0;
+
+        // Nothing is closed in the new pass.
+        for (int i = 0; i < closedCount; i++) {
+            if (workspace.getFlag(closedNodes[i]) == CLOSED)
+                workspace.setFlag(closedNodes[i], SEEN);
+        }
+        closedCount = 0;
+        passEnded = false;
+    }
+
+    // The cost is summed up along the parents, g of the end can be a little higher than that.
+    private Path buildPath() {
+        ArrayList<Pair> cells = new ArrayList<>();
+        double cost = 0;
+        for (int node = endNode; node != NO_PARENT; node = parents[node]) {
+            cells.add(new Pair(grid.xOf(node), grid.yOf(node)));
+            int parent = parents[node];
+            if (parent == NO_PARENT)
+                continue;
+
+            for (int i = 0; i < neighborOffsets.length; i++) {
+                if (parent + neighborOffsets[i] == node) {
+                    cost += grid.getWeight(node) * stepCosts[i];
+                    break;
+                }
+            }
+        }
+        Collections.reverse(cells);
+        return new Path(cells, cost, expandedCount);
+    }
+
+    // The best path of a finished pass, empty until the first pass ends with one.
+    public Path getPath() {
+        return path;
+    }
+
+    // The path costs at most this times the optimal cost. Infinite until there is a path, 1 once it's optimal.
+    public double getBound() {
+        return bound;
+    }
+
+    // The heuristic weight of the current pass.
+    public double getWeight() {
+        return weight;
+    }
+
+    // Finished once the path is optimal or there is no path at all.
+    public boolean isFinished() {
+        return finished;
+    }
+
+    // Over all passes so far.
+    public int getExpandedCount() {
+        return expandedCount;
+    }
+}
@@ -0,0 +1,171 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.IndexedMinHeap;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.pathfindingdemo.AStar.SearchWorkspace.CLOSED;
+import static org.pathfindingdemo.AStar.SearchWorkspace.NO_PARENT;
+import static org.pathfindingdemo.AStar.SearchWorkspace.OPEN;
+
+/* ############################
+ * # Class BidirectionalAStar #
+ * ############################
+ * A* grown from both ends at once. The forward search runs from the start over the normal moves and the backward
+ * search runs from the end over the reversed moves, where going back from a cell costs the weight of that cell.
+ *
+ * Both searches use the average potential p(n) = (h(n, end) - h(n, start)) / 2. The forward key is g + p and the
+ * backward key is g - p, so with a consistent heuristic every move has a non-negative reduced cost in both
+ * directions. mu is the cheapest start-to-end path seen where the two searches touch. The search is done when the
+ * two smallest keys add up to at least mu, and no path exists once either side runs out of open nodes. With the
+ * Dijkstra heuristic this is plain bidirectional Dijkstra, so each side only grows to about half the path cost.
+ * Not thread safe, use one instance per thread.
+ */
+public class BidirectionalAStar implements PathEngine {
+    private final SearchGrid grid;
+    private final Heuristic heuristic;
+    private final int[] neighborOffsets;
+    private final double[] stepCosts;
+    private final SearchWorkspace forward; // Keyed by g + p(n)
+    private final SearchWorkspace backward; // Keyed by g - p(n)
+
+    private Pair startPos;
+    private Pair endPos;
+    private double bestCost; // mu
+    private int meetingNode;
+    private int expandedCount;
+
+    public BidirectionalAStar(MapData mapData, Heuristic heuristic) {
+        this(new SearchGrid(mapData.getGrid()), heuristic, Connectivity.EIGHT);
+    }
+
+    public BidirectionalAStar(SearchGrid grid, Heuristic heuristic, Connectivity connectivity) {
+        this.grid = grid;
+        this.heuristic = heuristic;
+        neighborOffsets = grid.getOffsets(connectivity);
+        stepCosts = grid.getStepCosts(connectivity);
+        forward = new SearchWorkspace(grid.getSize());
+        backward = new SearchWorkspace(grid.getSize());
+    }
+
+    private double potential(int node) {
+        int x = grid.xOf(node);
+        int y = grid.yOf(node);
+        return (heuristic.calculate(x, y, endPos.getX(), endPos.getY()) -
+                heuristic.calculate(x, y, startPos.getX(), startPos.getY())) / 2;
+    }
+
+    // The potential as seen by one side, added to g for the key. Open nodes have it in their key, so it's only
+    // calculated when a node is reached or reopened.
+    private double sidePotential(SearchWorkspace workspace, int node) {
+        double p = potential(node);
+        return workspace == forward ? p : -p;
+    }
+
+    // Expands the best node of one side. other is the opposite side, used to spot where they meet.
+    private void expand(SearchWorkspace workspace, SearchWorkspace other, boolean isForward) {
+        double[] g = workspace.g;
+        int[] parents = workspace.parents;
+        IndexedMinHeap openNodes = workspace.openNodes;
+
+        int currentNode = openNodes.poll();
+        workspace.setFlag(currentNode, CLOSED);
+        expandedCount++;
+        for (int i = 0; i < neighborOffsets.length; i++) {
+            int neighNode = currentNode + neighborOffsets[i];
+            if (grid.getWeight(neighNode) == 0)
+                continue;
+
+            // Going forward costs the weight of the cell entered, going backward the weight of the cell left.
+            double weight = isForward ? grid.getWeight(neighNode) : grid.getWeight(currentNode);
+            double neighG = g[currentNode] + weight * stepCosts[i];
+            switch (workspace.getFlag(neighNode)) {
+                case OPEN:
+                    if (neighG >= g[neighNode])
+                        continue;
+                    double key = openNodes.getKey(neighNode) - (g[neighNode] - neighG);
+                    parents[neighNode] = currentNode;
+                    g[neighNode] = neighG;
+                    openNodes.decreaseKey(neighNode, key);
+                    break;
+                case CLOSED:
+                    if (neighG >= g[neighNode])
+                        continue;
+                    parents[neighNode] = currentNode;
+                    g[neighNode] = neighG;
+                    workspace.setFlag(neighNode, OPEN);
+                    openNodes.add(neighNode, neighG + sidePotential(workspace, neighNode));
+                    break;
+                default:
+                    workspace.reach(neighNode);
+                    parents[neighNode] = currentNode;
+                    g[neighNode] = neighG;
+                    workspace.setFlag(neighNode, OPEN);
+                    openNodes.add(neighNode, neighG + sidePotential(workspace, neighNode));
+            }
+
+            if (other.isReached(neighNode) && neighG + other.g[neighNode] < bestCost) {
+                bestCost = neighG + other.g[neighNode];
+                meetingNode = neighNode;
+            }
+        }
+    }
+
+    @Override
+    public Path findPath(Pair startPos, Pair endPos) {
+        if (!grid.isInside(startPos.getX(), startPos.getY()) || !grid.isInside(endPos.getX(), endPos.getY()))
+            throw new IllegalArgumentException("Start or end position is outside the grid");
+
+        this.startPos = startPos;
+        this.endPos = endPos;
+        bestCost = Double.POSITIVE_INFINITY;
+        meetingNode = NO_PARENT;
+        expandedCount = 0;
+        forward.begin();
+        backward.begin();
+
+        int startNode = grid.indexOf(startPos.getX(), startPos.getY());
+        int endNode = grid.indexOf(endPos.getX(), endPos.getY());
+        if (!grid.isPassable(startNode) || !grid.isPassable(endNode))
+            return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, 0);
+        if (startNode == endNode)
+            return new Path(Collections.singletonList(startPos), 0, 0);
+
+        forward.reach(startNode);
+        forward.openNodes.add(startNode, sidePotential(forward, startNode));
+        forward.setFlag(startNode, OPEN);
+        backward.reach(endNode);
+        backward.openNodes.add(endNode, sidePotential(backward, endNode));
+        backward.setFlag(endNode, OPEN);
+
+        while (!forward.openNodes.isEmpty() && !backward.openNodes.isEmpty()) {
+            if (forward.openNodes.peekKey() + backward.openNodes.peekKey() >= bestCost)
+                break;
+
+            // Grow the smaller frontier.
+            if (forward.openNodes.size() <= backward.openNodes.size())
+                expand(forward, backward, true);
+            else
+                expand(backward, forward, false);
+        }
+
+        if (meetingNode == NO_PARENT)
+            return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, expandedCount);
+
+        ArrayList<Pair> cells = new ArrayList<>();
+        for (int node = meetingNode; node != NO_PARENT; node = forward.parents[node]) {
+            cells.add(new Pair(grid.xOf(node), grid.yOf(node)));
+        }
+        Collections.reverse(cells);
+        for (int node = backward.parents[meetingNode]; node != NO_PARENT; node = backward.parents[node]) {
+            cells.add(new Pair(grid.xOf(node), grid.yOf(node)));
+        }
+        return new Path(cells, bestCost, expandedCount);
+    }
+
+    public SearchGrid getGrid() {
+        return grid;
+    }
+}
@@ -0,0 +1,10 @@
+package org.pathfindingdemo.AStar;
+
+// Read access to the cells of a map, however they are stored.
+public interface CellGrid {
+    int getMapWidth();
+
+    int getMapHeight();
+
+    CellType getCell(int x, int y);
+}
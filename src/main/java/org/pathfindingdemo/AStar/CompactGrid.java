@@ -0,0 +1,76 @@
+package org.pathfindingdemo.AStar;
+
+/* #####################
+ * # Class CompactGrid #
+ * #####################
+ * Editable map that stores every cell as the 2 bit ordinal of its CellType, 32 cells to a long, row by row.
+ * A new grid is all NORMAL cells since NORMAL has ordinal 0.
+ */
+public class CompactGrid implements CellGrid {
+    private final static CellType[] CELL_TYPES = CellType.values();
+
+    private final int width;
+    private final int height;
+    private final long[] words;
+
+    public CompactGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        words = new long[(int) (((long) width * height + 31) >>> 5)];
+    }
+
+    public static CompactGrid copyOf(CellGrid grid) {
+        CompactGrid copy = new CompactGrid(grid.getMapWidth(), grid.getMapHeight());
+        for (int y = 0; y < copy.height; y++) {
+            for (int x = 0; x < copy.width; x++) {
+                copy.setCell(x, y, grid.getCell(x, y));
+            }
+        }
+        return copy;
+    }
+
+    // Ordinal of the cell at a row by row index, y * width + x.
+    int getOrdinal(long index) {
+        return (int) (words[(int) (index >>> 5)] >>> ((index & 31) << 1)) & 3;
+    }
+
+    void setOrdinal(long index, int ordinal) {
+        int word = (int) (index >>> 5);
+        int shift = (int) (index & 31) << 1;
+        words[word] = (words[word] & ~(3L << shift)) | ((long) ordinal << shift);
+    }
+
+    // Sets the cells from index from up to but not including index to, whole longs at a time where it can.
+    void fillOrdinal(long from, long to, int ordinal) {
+        long pattern = ordinal * 0x5555555555555555L; // The ordinal repeated in all 32 cells of a long.
+        long index = from;
+        while (index < to && (index & 31) != 0) {
+            setOrdinal(index++, ordinal);
+        }
+        for (; index + 32 <= to; index += 32) {
+            words[(int) (index >>> 5)] = pattern;
+        }
+        while (index < to) {
+            setOrdinal(index++, ordinal);
+        }
+    }
+
+    @Override
+    public CellType getCell(int x, int y) {
+        return CELL_TYPES[getOrdinal((long) y * width + x)];
+    }
+
+    public void setCell(int x, int y, CellType cellType) {
+        setOrdinal((long) y * width + x, cellType.ordinal());
+    }
+
+    @Override
+    public int getMapWidth() {
+        return width;
+    }
+
+    @Override
+    public int getMapHeight() {
+        return height;
+    }
+}
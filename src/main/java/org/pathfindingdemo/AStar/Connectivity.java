@@ -0,0 +1,33 @@
+package org.pathfindingdemo.AStar;
+
+// Which neighbors a node can move to. The diagonal moves of EIGHT cost DIAGONAL_COST_FACTOR times the cell weight.
+public enum Connectivity {
+    FOUR(new int[] {1, 0, -1, 0},
+         new int[] {0, 1, 0, -1}),
+    EIGHT(new int[] {1, 0, -1, 0, 1, -1, -1, 1},
+          new int[] {0, 1, 0, -1, 1, 1, -1, -1});
+
+    private final int[] xOffsets;
+    private final int[] yOffsets;
+
+    Connectivity(int[] xOffsets, int[] yOffsets) {
+        this.xOffsets = xOffsets;
+        this.yOffsets = yOffsets;
+    }
+
+    public int getNeighborCount() {
+        return xOffsets.length;
+    }
+
+    public int getXOffset(int neighbor) {
+        return xOffsets[neighbor];
+    }
+
+    public int getYOffset(int neighbor) {
+        return yOffsets[neighbor];
+    }
+
+    public boolean isDiagonal(int neighbor) {
+        return xOffsets[neighbor] != 0 && yOffsets[neighbor] != 0;
+    }
+}
@@ -0,0 +1,70 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+/* ###########################
+ * # Class ConnectivityIndex #
+ * ###########################
+ * Labels the connected components of passable cells with one flood fill per component. Two cells can only have a
+ * path between them if they have the same label, so a query between different components can be rejected without
+ * searching. The labels are for one grid and one connectivity, and never change after construction.
+ */
+public class ConnectivityIndex {
+    public final static int NO_COMPONENT = 0; // Label of impassable cells.
+
+    private final SearchGrid grid;
+    private final Connectivity connectivity;
+    private final int[] components;
+    private int componentCount;
+
+    public ConnectivityIndex(SearchGrid grid, Connectivity connectivity) {
+        this.grid = grid;
+        this.connectivity = connectivity;
+        components = new int[grid.getSize()];
+        componentCount = 0;
+
+        int[] offsets = grid.getOffsets(connectivity);
+        int[] queue = new int[grid.getSize()];
+        for (int node = 0; node < components.length; node++) {
+            if (!grid.isPassable(node) || components[node] != NO_COMPONENT)
+                continue;
+
+            int label = ++componentCount;
+            int head = 0;
+            int tail = 0;
+            components[node] = label;
+            queue[tail++] = node;
+            while (head < tail) {
+                int currentNode = queue[head++];
+                for (int offset : offsets) {
+                    int neighNode = currentNode + offset;
+                    if (grid.isPassable(neighNode) && components[neighNode] == NO_COMPONENT) {
+                        components[neighNode] = label;
+                        queue[tail++] = neighNode;
+                    }
+                }
+            }
+        }
+    }
+
+    public int getComponent(int x, int y) {
+        return components[grid.indexOf(x, y)];
+    }
+
+    public boolean isConnected(Pair fromPos, Pair toPos) {
+        int component = getComponent(fromPos.getX(), fromPos.getY());
+        return component != NO_COMPONENT && component == getComponent(toPos.getX(), toPos.getY());
+    }
+
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    public SearchGrid getGrid() {
+        return grid;
+    }
+
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+}
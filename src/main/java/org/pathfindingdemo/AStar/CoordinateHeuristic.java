@@ -0,0 +1,15 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+// Heuristic on plain coordinates, the searches call it without creating any Pairs. Lambdas of four ints work too.
+@FunctionalInterface
+public interface CoordinateHeuristic extends Heuristic {
+    @Override
+    double calculate(int fromX, int fromY, int endX, int endY);
+
+    @Override
+    default double calculate(Pair fromPos, Pair endPos) {
+        return calculate(fromPos.getX(), fromPos.getY(), endPos.getX(), endPos.getY());
+    }
+}
@@ -2,6 +2,12 @@ package org.pathfindingdemo.AStar;
 
 import org.pathfindingdemo.Helpers.Pair;
 
+// Estimated cost from one cell to the end. Searches call the int version, which wraps the positions in Pairs
+// unless it is overridden. Implement CoordinateHeuristic instead to skip that.
 public interface Heuristic {
     double calculate(Pair fromPos, Pair endPos);
+
+    default double calculate(int fromX, int fromY, int endX, int endY) {
+        return calculate(new Pair(fromX, fromY), new Pair(endX, endY));
+    }
 }
@@ -0,0 +1,56 @@
+package org.pathfindingdemo.AStar;
+
+/* ####################
+ * # Class Heuristics #
+ * ####################
+ * The built in distance heuristics. Each one is a final class of its own, so a search that only ever uses one of
+ * them has a single receiver type at its heuristic call and the JIT can inline the call.
+ */
+public final class Heuristics {
+    public final static CoordinateHeuristic DIJKSTRA = new Dijkstra();
+    public final static CoordinateHeuristic MANHATTAN = new Manhattan();
+    public final static CoordinateHeuristic EUCLIDEAN = new Euclidean();
+    public final static CoordinateHeuristic DIAGONAL = new Diagonal();
+
+    private Heuristics() {
+    }
+
+    // No estimate at all, A* becomes Dijkstra.
+    private static final class Dijkstra implements CoordinateHeuristic {
+        @Override
+        public double calculate(int fromX, int fromY, int endX, int endY) {
+            return 0.;
+        }
+    }
+
+    // Overestimates on 8-connected grids, so paths found with it may not be the shortest.
+    private static final class Manhattan implements CoordinateHeuristic {
+        @Override
+        public double calculate(int fromX, int fromY, int endX, int endY) {
+            int dx = Math.abs(fromX - endX);
+            int dy = Math.abs(fromY - endY);
+            return AStar.NORMAL_WEIGHT * (dx + dy);
+        }
+    }
+
+    private static final class Euclidean implements CoordinateHeuristic {
+        @Override
+        public double calculate(int fromX, int fromY, int endX, int endY) {
+            int dx = Math.abs(fromX - endX);
+            int dy = Math.abs(fromY - endY);
+            return AStar.NORMAL_WEIGHT * Math.sqrt((double) dx * dx + (double) dy * dy);
+        }
+    }
+
+    // Octile distance, the exact cost on an open 8-connected grid of normal cells.
+    private static final class Diagonal implements CoordinateHeuristic {
+        @Override
+        public double calculate(int fromX, int fromY, int endX, int endY) {
+            int dx = Math.abs(fromX - endX);
+            int dy = Math.abs(fromY - endY);
+            return AStar.NORMAL_WEIGHT * (dx + dy) +
+                    (AStar.DIAGONAL_COST_FACTOR * AStar.NORMAL_WEIGHT - 2 * AStar.NORMAL_WEIGHT)
+                    * Math.min(dx, dy);
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.IndexedMinHeap;
+import org.pathfindingdemo.Helpers.LongIntHashMap;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.pathfindingdemo.AStar.SearchWorkspace.CLOSED;
+import static org.pathfindingdemo.AStar.SearchWorkspace.NO_PARENT;
+import static org.pathfindingdemo.AStar.SearchWorkspace.OPEN;
+import static org.pathfindingdemo.AStar.SearchWorkspace.UNVISITED;
+
+/* ################################
+ * # Class HierarchicalPathFinder #
+ * ################################
+ * HPA* style path finder. The grid is split into square clusters. Where two neighboring clusters share a run of
+ * passable cells along their border, one or two entrances are placed on it, and each entrance adds an abstract
+ * node on both sides of the border. 8-connected, a border can also be crossed diagonally where no cell pair straight
+ * across is open, on the border or where four clusters meet, and every such crossing gets a transition of its own.
+ * So the abstract graph has a path whenever the grid has one. Abstract nodes in the same cluster are connected by
+ * the cost of the best path between them inside the cluster, which is computed once when the finder is created.
+ *
+ * A query connects the start and the end to the abstract nodes of their clusters and runs A* on the abstract graph.
+ * findPath() then runs A* on the cells of the clusters the abstract path goes through, the corridor, which also
+ * smooths away the detours over the entrances. Cells outside the corridor aren't opened, but the lowest f among
+ * them is a lower bound on the cost of any path that leaves the corridor. The path is only taken if it costs at most
+ * maxCostRatio times that bound, otherwise the cells outside are opened and the search goes on like plain A* until
+ * the bound holds. With an admissible heuristic the cost is then never more than maxCostRatio times the optimal cost.
+ *
+ * Opening the cells outside is a fallback that can grow into an A* search over the whole map, so it gets a budget of
+ * maxFallbackFactor times the cells the corridor search expanded. If the budget runs out the best path found so far
+ * is returned and isCostBounded() is false. That keeps a query within (1 + maxFallbackFactor) times the corridor
+ * work, which grows with the number and size of the clusters on the route instead of with the map. The bound is
+ * usually met on open maps. In mazes, where the heuristic is far too low, it often isn't, a LandmarkHeuristic helps
+ * there. An infinite factor always finishes the check, an infinite ratio always takes the corridor path.
+ *
+ * Abstract edge costs are directed since moving into a cell costs the weight of that cell. Costs use the
+ * NORMAL/OBSTACLE weights. Not thread safe, use one finder per thread.
+ */
+public class HierarchicalPathFinder implements PathEngine {
+    public final static int DEFAULT_CLUSTER_SIZE = 16;
+    public final static double DEFAULT_MAX_COST_RATIO = 1.25;
+    public final static double DEFAULT_MAX_FALLBACK_FACTOR = 2;
+    private final static int MAX_SINGLE_ENTRANCE_WIDTH = 6; // Wider entrances get a transition at both ends.
+    private final static int FROM_START = -2; // Parent of abstract nodes that are reached straight from the start.
+    private final static byte DEFERRED = 3; // Reached outside the corridor, not opened yet.
+
+    private final SearchGrid grid;
+    private final Heuristic heuristic;
+    private final int[] neighborOffsets;
+    private final double[] stepCosts;
+    private final boolean diagonal;
+    private final int clusterSize;
+    private final int clustersX;
+    private final int clustersY;
+
+    // Abstract graph
+    private final ArrayList<AbstractNode> abstractNodes;
+    private final LongIntHashMap abstractNodeAt; // grid index -> abstract node
+    private final int[][] clusterNodes; // cluster -> abstract nodes in it
+    private int[] clusterNodeCounts; // Only while building, the lists are trimmed afterwards.
+
+    // Query state, the abstract search uses one extra slot for the end.
+    private final SearchWorkspace workspace;
+    private final double[] abstractG;
+    private final int[] abstractParents;
+    private final byte[] abstractFlags;
+    private final double[] toEnd;
+    private final IndexedMinHeap abstractOpen;
+    private final boolean[] inCorridor; // cluster -> in the corridor of the current query
+    private int[] deferredNodes;
+    private int deferredCount;
+    private double maxCostRatio = DEFAULT_MAX_COST_RATIO;
+    private double maxFallbackFactor = DEFAULT_MAX_FALLBACK_FACTOR;
+    private boolean costBounded;
+    private int expandedCount;
+
+    public HierarchicalPathFinder(MapData mapData, Heuristic heuristic) {
+        this(new SearchGrid(mapData.getGrid()), heuristic, Connectivity.EIGHT, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalPathFinder(SearchGrid grid, Heuristic heuristic, Connectivity connectivity, int clusterSize) {
+        if (clusterSize < 2)
+            throw new IllegalArgumentException("Cluster size must be at least 2");
+
+        this.grid = grid;
+        this.heuristic = heuristic;
+        this.clusterSize = clusterSize;
+        neighborOffsets = grid.getOffsets(connectivity);
+        stepCosts = grid.getStepCosts(connectivity);
+        diagonal = connectivity == Connectivity.EIGHT;
+        clustersX = (grid.getWidth() + clusterSize - 1) / clusterSize;
+        clustersY = (grid.getHeight() + clusterSize - 1) / clusterSize;
+        workspace = new SearchWorkspace(grid.getSize());
+
+        abstractNodes = new ArrayList<>();
+        abstractNodeAt = new LongIntHashMap(clustersX * clustersY * 4);
+        clusterNodes = new int[clustersX * clustersY][];
+        clusterNodeCounts = new int[clustersX * clustersY];
+        for (int cluster = 0; cluster < clusterNodes.length; cluster++) {
+            clusterNodes[cluster] = new int[4];
+        }
+        buildEntrances();
+        for (int cluster = 0; cluster < clusterNodes.length; cluster++) {
+            clusterNodes[cluster] = Arrays.copyOf(clusterNodes[cluster], clusterNodeCounts[cluster]);
+        }
+        clusterNodeCounts = null;
+        buildIntraEdges();
+
+        int nodeCount = abstractNodes.size() + 1;
+        abstractG = new double[nodeCount];
+        abstractParents = new int[nodeCount];
+        abstractFlags = new byte[nodeCount];
+        toEnd = new double[nodeCount];
+        abstractOpen = new IndexedMinHeap(nodeCount);
+        inCorridor = new boolean[clustersX * clustersY];
+        deferredNodes = new int[64];
+    }
+
+    private int clusterOf(int x, int y) {
+        return (y / clusterSize) * clustersX + x / clusterSize;
+    }
+
+    private int clusterOf(int node) {
+        return clusterOf(grid.xOf(node), grid.yOf(node));
+    }
+
+    private int getOrAddAbstractNode(int node) {
+        int abstractNode = abstractNodeAt.get(node);
+        if (abstractNode != LongIntHashMap.NO_VALUE)
+            return abstractNode;
+
+        int id = abstractNodes.size();
+        abstractNodes.add(new AbstractNode(node));
+        abstractNodeAt.put(node, id);
+        int cluster = clusterOf(node);
+        int count = clusterNodeCounts[cluster];
+        if (count == clusterNodes[cluster].length)
+            clusterNodes[cluster] = Arrays.copyOf(clusterNodes[cluster], count * 2);
+        clusterNodes[cluster][count] = id;
+        clusterNodeCounts[cluster] = count + 1;
+        return id;
+    }
+
+    // Connects the two cells on each side of a border, the cost is the weight of the cell moved into times the step
+    // cost of the move.
+    private void addTransition(int node1, int node2, double stepCost) {
+        int abstractNode1 = getOrAddAbstractNode(node1);
+        int abstractNode2 = getOrAddAbstractNode(node2);
+        abstractNodes.get(abstractNode1).addEdge(abstractNode2, grid.getWeight(node2) * stepCost);
+        abstractNodes.get(abstractNode2).addEdge(abstractNode1, grid.getWeight(node1) * stepCost);
+    }
+
+    // Walks one border. (x, y) is the first cell on the near side, (stepX, stepY) moves along the border and
+    // (crossX, crossY) moves over it.
+    private void scanBorder(int x, int y, int length, int stepX, int stepY, int crossX, int crossY) {
+        int[] near = new int[length];
+        int[] far = new int[length];
+        boolean[] open = new boolean[length + 1]; // The last one stays closed and ends the last run.
+        for (int i = 0; i < length; i++) {
+            near[i] = grid.indexOf(x + i * stepX, y + i * stepY);
+            far[i] = grid.indexOf(x + i * stepX + crossX, y + i * stepY + crossY);
+            open[i] = grid.isPassable(near[i]) && grid.isPassable(far[i]);
+        }
+
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            if (open[i] && runStart == -1) {
+                runStart = i;
+            } else if (!open[i] && runStart != -1) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 < MAX_SINGLE_ENTRANCE_WIDTH) {
+                    int middle = (runStart + runEnd) / 2;
+                    addTransition(near[middle], far[middle], 1);
+                } else {
+                    addTransition(near[runStart], far[runStart], 1);
+                    addTransition(near[runEnd], far[runEnd], 1);
+                }
+                runStart = -1;
+            }
+        }
+
+        // Next to an open pair a diagonal crossing can go around over that pair's entrance, so only the ones
+        // between two closed pairs need a transition.
+        if (!diagonal)
+            return;
+        for (int i = 0; i + 1 < length; i++) {
+            if (open[i] || open[i + 1])
+                continue;
+            if (grid.isPassable(near[i]) && grid.isPassable(far[i + 1]))
+                addTransition(near[i], far[i + 1], AStar.DIAGONAL_COST_FACTOR);
+            if (grid.isPassable(near[i + 1]) && grid.isPassable(far[i]))
+                addTransition(near[i + 1], far[i], AStar.DIAGONAL_COST_FACTOR);
+        }
+    }
+
+    // Where four clusters meet a path can cross diagonally from one corner cell to the opposite one. If one of the
+    // other two corner cells is passable it can go around over the borders instead, so only then is the transition
+    // needed. (x, y) is the corner cell of the top left cluster.
+    private void scanCorner(int x, int y) {
+        int topLeft = grid.indexOf(x, y);
+        int topRight = grid.indexOf(x + 1, y);
+        int bottomLeft = grid.indexOf(x, y + 1);
+        int bottomRight = grid.indexOf(x + 1, y + 1);
+        if (grid.isPassable(topLeft) && grid.isPassable(bottomRight)
+                && !grid.isPassable(topRight) && !grid.isPassable(bottomLeft))
+            addTransition(topLeft, bottomRight, AStar.DIAGONAL_COST_FACTOR);
+        if (grid.isPassable(topRight) && grid.isPassable(bottomLeft)
+                && !grid.isPassable(topLeft) && !grid.isPassable(bottomRight))
+            addTransition(topRight, bottomLeft, AStar.DIAGONAL_COST_FACTOR);
+    }
+
+    private void buildEntrances() {
+        for (int clusterY = 0; clusterY < clustersY; clusterY++) {
+            int minY = clusterY * clusterSize;
+            int height = Math.min(grid.getHeight(), minY + clusterSize) - minY;
+            for (int clusterX = 0; clusterX < clustersX; clusterX++) {
+                int minX = clusterX * clusterSize;
+                int width = Math.min(grid.getWidth(), minX + clusterSize) - minX;
+                // Right border
+                if (clusterX + 1 < clustersX)
+                    scanBorder(minX + width - 1, minY, height, 0, 1, 1, 0);
+                // Bottom border
+                if (clusterY + 1 < clustersY)
+                    scanBorder(minX, minY + height - 1, width, 1, 0, 0, 1);
+                // Bottom right corner
+                if (diagonal && clusterX + 1 < clustersX && clusterY + 1 < clustersY)
+                    scanCorner(minX + width - 1, minY + height - 1);
+            }
+        }
+    }
+
+    private void buildIntraEdges() {
+        for (int cluster = 0; cluster < clusterNodes.length; cluster++) {
+            int[] nodes = clusterNodes[cluster];
+            for (int from : nodes) {
+                searchCluster(cluster, abstractNodes.get(from).node, false, -1);
+                for (int to : nodes) {
+                    int toNode = abstractNodes.get(to).node;
+                    if (from != to && workspace.getFlag(toNode) == CLOSED)
+                        abstractNodes.get(from).addEdge(to, workspace.g[toNode]);
+                }
+            }
+        }
+    }
+
+    // Dijkstra from source that never leaves the cluster. Reversed, g is the cost of going from a cell to source
+    // instead of from source to the cell. Stops once target is closed, pass -1 to search the whole cluster.
+    private void searchCluster(int cluster, int source, boolean reverse, int target) {
+        double[] g = workspace.g;
+        int[] parents = workspace.parents;
+        IndexedMinHeap openNodes = workspace.openNodes;
+        workspace.begin();
+
+        workspace.reach(source);
+        openNodes.add(source, 0);
+        workspace.setFlag(source, OPEN);
+        while (!openNodes.isEmpty()) {
+            int currentNode = openNodes.poll();
+            workspace.setFlag(currentNode, CLOSED);
+            expandedCount++;
+            if (currentNode == target)
+                return;
+
+            for (int i = 0; i < neighborOffsets.length; i++) {
+                int neighNode = currentNode + neighborOffsets[i];
+                if (grid.getWeight(neighNode) == 0 || clusterOf(neighNode) != cluster)
+                    continue;
+
+                double neighG = g[currentNode] + (reverse ? grid.getWeight(currentNode) : grid.getWeight(neighNode)) * stepCosts[i];
+                switch (workspace.getFlag(neighNode)) {
+                    case OPEN:
+                        if (neighG < g[neighNode]) {
+                            parents[neighNode] = currentNode;
+                            g[neighNode] = neighG;
+                            openNodes.decreaseKey(neighNode, neighG);
+                        }
+                        break;
+                    case CLOSED:
+                        break;
+                    default:
+                        workspace.reach(neighNode);
+                        parents[neighNode] = currentNode;
+                        g[neighNode] = neighG;
+                        workspace.setFlag(neighNode, OPEN);
+                        openNodes.add(neighNode, neighG);
+                }
+            }
+        }
+    }
+
+    private double estimate(int abstractNode, Pair endPos) {
+        return calculateH(abstractNodes.get(abstractNode).node, endPos);
+    }
+
+    private void relaxAbstract(int abstractNode, int parent, double g, double h) {
+        switch (abstractFlags[abstractNode]) {
+            case OPEN:
+                if (g < abstractG[abstractNode]) {
+                    abstractParents[abstractNode] = parent;
+                    abstractOpen.decreaseKey(abstractNode, g + h);
+                    abstractG[abstractNode] = g;
+                }
+                break;
+            case CLOSED:
+                if (g < abstractG[abstractNode]) {
+                    abstractParents[abstractNode] = parent;
+                    abstractG[abstractNode] = g;
+                    abstractFlags[abstractNode] = OPEN;
+                    abstractOpen.add(abstractNode, g + h);
+                }
+                break;
+            default:
+                abstractParents[abstractNode] = parent;
+                abstractG[abstractNode] = g;
+                abstractFlags[abstractNode] = OPEN;
+                abstractOpen.add(abstractNode, g + h);
+        }
+    }
+
+    /*
+     * Searches the abstract graph only. The waypoints start at startPos and end at endPos, and every pair of
+     * consecutive waypoints is either in the same cluster or on both sides of a cluster border, so each leg can be
+     * turned into cells on its own with refineSegment when it is needed. Empty if there is no path. Legs refined
+     * one by one aren't smoothed and don't have the cost bound of findPath().
+     */
+    public List<Pair> findWaypoints(Pair startPos, Pair endPos) {
+        expandedCount = 0;
+        if (!grid.isInside(startPos.getX(), startPos.getY()) || !grid.isInside(endPos.getX(), endPos.getY()))
+            throw new IllegalArgumentException("Start or end position is outside the grid");
+
+        int startNode = grid.indexOf(startPos.getX(), startPos.getY());
+        int endNode = grid.indexOf(endPos.getX(), endPos.getY());
+        if (!grid.isPassable(startNode) || !grid.isPassable(endNode))
+            return Collections.emptyList();
+
+        int startCluster = clusterOf(startNode);
+        int endCluster = clusterOf(endNode);
+        int endId = abstractNodes.size();
+        abstractOpen.clear();
+        Arrays.fill(abstractFlags, (byte) 0);
+        Arrays.fill(toEnd, Double.POSITIVE_INFINITY);
+
+        // Connect the end to the abstract nodes of its cluster.
+        searchCluster(endCluster, endNode, true, -1);
+        for (int abstractNode : clusterNodes[endCluster]) {
+            int node = abstractNodes.get(abstractNode).node;
+            if (workspace.getFlag(node) == CLOSED)
+                toEnd[abstractNode] = workspace.g[node];
+        }
+
+        // Connect the start to the abstract nodes of its cluster, and to the end if they share a cluster.
+        searchCluster(startCluster, startNode, false, -1);
+        for (int abstractNode : clusterNodes[startCluster]) {
+            int node = abstractNodes.get(abstractNode).node;
+            if (workspace.getFlag(node) == CLOSED)
+                relaxAbstract(abstractNode, FROM_START, workspace.g[node], estimate(abstractNode, endPos));
+        }
+        if (startCluster == endCluster && workspace.getFlag(endNode) == CLOSED)
+            relaxAbstract(endId, FROM_START, workspace.g[endNode], 0);
+
+        while (!abstractOpen.isEmpty()) {
+            int current = abstractOpen.poll();
+            abstractFlags[current] = CLOSED;
+            expandedCount++;
+            if (current == endId)
+                return buildWaypoints(startPos, endPos, endId);
+
+            for (Edge edge : abstractNodes.get(current).edges) {
+                relaxAbstract(edge.target, current, abstractG[current] + edge.cost, estimate(edge.target, endPos));
+            }
+            if (toEnd[current] != Double.POSITIVE_INFINITY)
+                relaxAbstract(endId, current, abstractG[current] + toEnd[current], 0);
+        }
+        return Collections.emptyList();
+    }
+
+    private List<Pair> buildWaypoints(Pair startPos, Pair endPos, int endId) {
+        ArrayList<Pair> waypoints = new ArrayList<>();
+        waypoints.add(endPos);
+        for (int abstractNode = abstractParents[endId]; abstractNode != FROM_START;
+             abstractNode = abstractParents[abstractNode]) {
+            int node = abstractNodes.get(abstractNode).node;
+            Pair pos = new Pair(grid.xOf(node), grid.yOf(node));
+            if (!pos.equals(waypoints.get(waypoints.size() - 1)))
+                waypoints.add(pos);
+        }
+        if (!startPos.equals(waypoints.get(waypoints.size() - 1)))
+            waypoints.add(startPos);
+        Collections.reverse(waypoints);
+        return waypoints;
+    }
+
+    // Cells from one waypoint to the next, the first waypoint excluded. Empty if the leg can't be refined.
+    public List<Pair> refineSegment(Pair fromPos, Pair toPos) {
+        int fromNode = grid.indexOf(fromPos.getX(), fromPos.getY());
+        int toNode = grid.indexOf(toPos.getX(), toPos.getY());
+        int cluster = clusterOf(fromNode);
+        if (cluster != clusterOf(toNode))
+            return Collections.singletonList(toPos); // Crosses a border between two adjacent cells.
+
+        searchCluster(cluster, fromNode, false, toNode);
+        if (workspace.getFlag(toNode) != CLOSED)
+            return Collections.emptyList();
+
+        ArrayList<Pair> cells = new ArrayList<>();
+        for (int node = toNode; node != fromNode; node = workspace.parents[node]) {
+            cells.add(new Pair(grid.xOf(node), grid.yOf(node)));
+        }
+        Collections.reverse(cells);
+        return cells;
+    }
+
+    @Override
+    public Path findPath(Pair startPos, Pair endPos) {
+        costBounded = false;
+        List<Pair> waypoints = findWaypoints(startPos, endPos);
+        if (waypoints.isEmpty())
+            return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, expandedCount);
+
+        for (Pair waypoint : waypoints) {
+            inCorridor[clusterOf(waypoint.getX(), waypoint.getY())] = true;
+        }
+        int startNode = grid.indexOf(startPos.getX(), startPos.getY());
+        int endNode = grid.indexOf(endPos.getX(), endPos.getY());
+        costBounded = searchCorridor(startNode, endNode, endPos);
+        for (Pair waypoint : waypoints) {
+            inCorridor[clusterOf(waypoint.getX(), waypoint.getY())] = false;
+        }
+
+        // g of the end can be out of date if cells before it got cheaper after it was reached, the path can't.
+        ArrayList<Pair> cells = new ArrayList<>();
+        double cost = 0;
+        for (int node = endNode; node != NO_PARENT; node = workspace.parents[node]) {
+            Pair pos = new Pair(grid.xOf(node), grid.yOf(node));
+            if (!cells.isEmpty()) {
+                Pair next = cells.get(cells.size() - 1);
+                boolean isDiagonal = pos.getX() != next.getX() && pos.getY() != next.getY();
+                double weight = grid.getWeight(grid.indexOf(next.getX(), next.getY()));
+                cost += isDiagonal ? weight * AStar.DIAGONAL_COST_FACTOR : weight;
+            }
+            cells.add(pos);
+        }
+        Collections.reverse(cells);
+        return new Path(cells, cost, expandedCount);
+    }
+
+    // A* from start to end that defers the cells outside the corridor. Stops once the end has been reached for at
+    // most maxCostRatio times the lowest f left, open or deferred. If only the deferred cells are left, they are
+    // opened and from then on the search covers the whole grid, until the fallback budget is spent. The corridor
+    // always leads to the end, so it has been reached by then. Returns whether the bound was proven.
+    private boolean searchCorridor(int startNode, int endNode, Pair endPos) {
+        double[] g = workspace.g;
+        int[] parents = workspace.parents;
+        IndexedMinHeap openNodes = workspace.openNodes;
+        workspace.begin();
+        deferredCount = 0;
+        double deferredF = Double.POSITIVE_INFINITY; // Only goes down, the g of a deferred cell never goes up.
+        boolean widened = false;
+        int corridorExpanded = 0;
+        double fallbackLeft = 0;
+
+        workspace.reach(startNode);
+        workspace.setFlag(startNode, OPEN);
+        openNodes.add(startNode, calculateH(startNode, endPos));
+        while (true) {
+            double lowestF = Math.min(openNodes.isEmpty() ? Double.POSITIVE_INFINITY : openNodes.peekKey(), deferredF);
+            if (workspace.isReached(endNode) && !(g[endNode] > maxCostRatio * lowestF))
+                return true;
+            if (widened && !(fallbackLeft >= 1))
+                return false;
+            // The corridor is used up, or the end is its best cell and the bound didn't hold. Open the deferred cells.
+            if (openNodes.isEmpty() || !widened && openNodes.peek() == endNode) {
+                if (widened)
+                    return false;
+                for (int i = 0; i < deferredCount; i++) {
+                    int node = deferredNodes[i];
+                    if (workspace.getFlag(node) != DEFERRED)
+                        continue;
+                    workspace.setFlag(node, OPEN);
+                    openNodes.add(node, g[node] + calculateH(node, endPos));
+                }
+                deferredCount = 0;
+                deferredF = Double.POSITIVE_INFINITY;
+                widened = true;
+                fallbackLeft = maxFallbackFactor * Math.max(corridorExpanded, 1);
+                continue;
+            }
+
+            int currentNode = openNodes.poll();
+            workspace.setFlag(currentNode, CLOSED);
+            expandedCount++;
+            if (widened)
+                fallbackLeft--;
+            else
+                corridorExpanded++;
+            for (int i = 0; i < neighborOffsets.length; i++) {
+                int neighNode = currentNode + neighborOffsets[i];
+                double weight = grid.getWeight(neighNode);
+                if (weight == 0)
+                    continue;
+
+                double neighG = g[currentNode] + weight * stepCosts[i];
+                byte flag = workspace.getFlag(neighNode);
+                if (flag == UNVISITED)
+                    workspace.reach(neighNode);
+                else if (!(neighG < g[neighNode]))
+                    continue;
+                g[neighNode] = neighG;
+                parents[neighNode] = currentNode;
+
+                // Closed cells are opened again, a path from outside the corridor can make them cheaper.
+                double neighF = neighG + calculateH(neighNode, endPos);
+                if (flag == OPEN) {
+                    openNodes.decreaseKey(neighNode, neighF);
+                } else if (flag == DEFERRED) {
+                    deferredF = Math.min(deferredF, neighF);
+                } else if (!widened && !inCorridor[clusterOf(neighNode)]) {
+                    workspace.setFlag(neighNode, DEFERRED);
+                    if (deferredCount == deferredNodes.length)
+                        deferredNodes = Arrays.copyOf(deferredNodes, deferredCount * 2);
+                    deferredNodes[deferredCount++] = neighNode;
+                    deferredF = Math.min(deferredF, neighF);
+                } else {
+                    workspace.setFlag(neighNode, OPEN);
+                    openNodes.add(neighNode, neighF);
+                }
+            }
+        }
+    }
+
+    private double calculateH(int node, Pair endPos) {
+        return heuristic.calculate(grid.xOf(node), grid.yOf(node), endPos.getX(), endPos.getY());
+    }
+
+    /*
+     * How far the cost of a path from findPath() may be above the lowest cost that can't be ruled out, at least 1.
+     * 1 makes it an A* search that starts in the corridor. Infinite takes the best path in the corridor without
+     * checking anything outside. The bound only holds for an admissible heuristic.
+     */
+    public void setMaxCostRatio(double maxCostRatio) {
+        if (!(maxCostRatio >= 1))
+            throw new IllegalArgumentException("Max cost ratio must be at least 1");
+
+        this.maxCostRatio = maxCostRatio;
+    }
+
+    public double getMaxCostRatio() {
+        return maxCostRatio;
+    }
+
+    /*
+     * How many cells the search outside the corridor may expand, as a multiple of the cells expanded inside it, at
+     * least 0. 0 never leaves the corridor, infinite always finishes checking the bound.
+     */
+    public void setMaxFallbackFactor(double maxFallbackFactor) {
+        if (!(maxFallbackFactor >= 0))
+            throw new IllegalArgumentException("Max fallback factor must be at least 0");
+
+        this.maxFallbackFactor = maxFallbackFactor;
+    }
+
+    public double getMaxFallbackFactor() {
+        return maxFallbackFactor;
+    }
+
+    // Whether the cost of the last path from findPath() was proven to be within maxCostRatio of the optimal cost.
+    public boolean isCostBounded() {
+        return costBounded;
+    }
+
+    public int getAbstractNodeCount() {
+        return abstractNodes.size();
+    }
+
+    public SearchGrid getGrid() {
+        return grid;
+    }
+
+    private static class AbstractNode {
+        final int node; // Grid index of the cell
+        final ArrayList<Edge> edges;
+
+        AbstractNode(int node) {
+            this.node = node;
+            edges = new ArrayList<>();
+        }
+
+        void addEdge(int target, double cost) {
+            edges.add(new Edge(target, cost));
+        }
+    }
+
+    private static class Edge {
+        final int target;
+        final double cost;
+
+        Edge(int target, double cost) {
+            this.target = target;
+            this.cost = cost;
+        }
+    }
+}
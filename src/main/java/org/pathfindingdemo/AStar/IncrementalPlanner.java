@@ -0,0 +1,198 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.IndexedMinHeap;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/* ############################
+ * # Class IncrementalPlanner #
+ * ############################
+ * Lifelong Planning A* (LPA*) between a fixed start and end on a map whose cells can change. Every node has
+ * g, its current cost, and rhs, the best cost its neighbors offer right now. A node where the two differ is
+ * inconsistent and sits in the open list. Only inconsistent nodes are expanded, so after a few cells change
+ * replan() only fixes the part of the search tree that was affected instead of searching again from scratch.
+ *
+ * The planner keeps its own copy of the cell weights. Changes made through setCell() or updateCells() are only
+ * searched the next time replan() is called. The open list is ordered by min(g, rhs) + h, which needs a consistent
+ * heuristic like Diagonal distance to give optimal paths.
+ */
+public class IncrementalPlanner {
+    private final SearchGrid grid;
+    private final Heuristic heuristic;
+    private final double[] weights; // Mutable copy of the grid weights, 0 for impassable cells.
+    private final int[] neighborOffsets;
+    private final double[] stepCosts;
+    private final double[] g;
+    private final double[] rhs;
+    private final double[] h; // NaN until the node is first needed.
+    private final IndexedMinHeap openNodes;
+
+    private final Pair startPos;
+    private final Pair endPos;
+    private final int startNode;
+    private final int endNode;
+    private int expandedCount;
+
+    public IncrementalPlanner(MapData mapData, Heuristic heuristic) {
+        this(new SearchGrid(mapData.getGrid()), heuristic, Connectivity.EIGHT,
+                mapData.getStartPos(), mapData.getEndPos());
+    }
+
+    public IncrementalPlanner(SearchGrid grid, Heuristic heuristic, Connectivity connectivity,
+                              Pair startPos, Pair endPos) {
+        if (!grid.isInside(startPos.getX(), startPos.getY()) || !grid.isInside(endPos.getX(), endPos.getY()))
+            throw new IllegalArgumentException("Start or end position is outside the grid");
+
+        this.grid = grid;
+        this.heuristic = heuristic;
+        this.startPos = startPos;
+        this.endPos = endPos;
+        weights = new double[grid.getSize()];
+        for (int node = 0; node < weights.length; node++) {
+            weights[node] = grid.getWeight(node);
+        }
+        neighborOffsets = grid.getOffsets(connectivity);
+        stepCosts = grid.getStepCosts(connectivity);
+        g = new double[grid.getSize()];
+        rhs = new double[grid.getSize()];
+        h = new double[grid.getSize()];
+        Arrays.fill(g, Double.POSITIVE_INFINITY);
+        Arrays.fill(rhs, Double.POSITIVE_INFINITY);
+        Arrays.fill(h, Double.NaN);
+        openNodes = new IndexedMinHeap(grid.getSize());
+
+        startNode = grid.indexOf(startPos.getX(), startPos.getY());
+        endNode = grid.indexOf(endPos.getX(), endPos.getY());
+        rhs[startNode] = 0;
+        openNodes.add(startNode, calculateKey(startNode));
+    }
+
+    private double getH(int node) {
+        if (Double.isNaN(h[node]))
+            h[node] = heuristic.calculate(grid.xOf(node), grid.yOf(node), endPos.getX(), endPos.getY());
+        return h[node];
+    }
+
+    private double calculateKey(int node) {
+        return Math.min(g[node], rhs[node]) + getH(node);
+    }
+
+    // Recalculates rhs from the neighbors and puts the node in the open list if it is inconsistent.
+    private void updateNode(int node) {
+        if (node != startNode) {
+            double best = Double.POSITIVE_INFINITY;
+            if (weights[node] != 0) {
+                for (int i = 0; i < neighborOffsets.length; i++) {
+                    int neighNode = node - neighborOffsets[i];
+                    if (weights[neighNode] == 0)
+                        continue;
+
+                    best = Math.min(best, g[neighNode] + weights[node] * stepCosts[i]);
+                }
+            }
+            rhs[node] = best;
+        }
+
+        boolean isOpen = openNodes.contains(node);
+        if (g[node] != rhs[node]) {
+            if (isOpen)
+                openNodes.update(node, calculateKey(node));
+            else
+                openNodes.add(node, calculateKey(node));
+        } else if (isOpen) {
+            openNodes.remove(node);
+        }
+    }
+
+    private void updateNeighbors(int node) {
+        for (int offset : neighborOffsets) {
+            int neighNode = node + offset;
+            if (weights[neighNode] != 0)
+                updateNode(neighNode);
+        }
+    }
+
+    public void setCell(int x, int y, CellType cellType) {
+        int node = grid.indexOf(x, y);
+        double weight = SearchGrid.weightOf(cellType);
+        if (weights[node] == weight)
+            return;
+
+        weights[node] = weight;
+        // Moves into the cell changed cost, and its neighbors may have lost or gained a way through it.
+        updateNode(node);
+        updateNeighbors(node);
+    }
+
+    // Reads the new cell type of every changed position from map and repairs the path.
+    public Path updateCells(List<Pair> changedCells, CellGrid map) {
+        for (Pair pos : changedCells) {
+            setCell(pos.getX(), pos.getY(), map.getCell(pos.getX(), pos.getY()));
+        }
+        return replan();
+    }
+
+    public Path replan() {
+        expandedCount = 0;
+        if (weights[startNode] == 0)
+            return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, expandedCount);
+
+        // Ties with the end are expanded too. The open list has no second key to order them, and an underconsistent
+        // node with the same key may still be holding up a stale cost of the end.
+        while (!openNodes.isEmpty() &&
+                (openNodes.peekKey() <= calculateKey(endNode) || rhs[endNode] != g[endNode])) {
+            int currentNode = openNodes.poll();
+            expandedCount++;
+            if (g[currentNode] > rhs[currentNode]) {
+                g[currentNode] = rhs[currentNode];
+                updateNeighbors(currentNode);
+            } else {
+                g[currentNode] = Double.POSITIVE_INFINITY;
+                updateNode(currentNode);
+                updateNeighbors(currentNode);
+            }
+        }
+        return buildPath();
+    }
+
+    // Follows the cheapest neighbor from the end back to the start.
+    private Path buildPath() {
+        if (g[endNode] == Double.POSITIVE_INFINITY)
+            return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, expandedCount);
+
+        ArrayList<Pair> cells = new ArrayList<>();
+        int node = endNode;
+        cells.add(endPos);
+        while (node != startNode) {
+            int bestNode = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < neighborOffsets.length; i++) {
+                int neighNode = node - neighborOffsets[i];
+                if (weights[neighNode] == 0)
+                    continue;
+
+                double cost = g[neighNode] + weights[node] * stepCosts[i];
+                if (cost < best) {
+                    best = cost;
+                    bestNode = neighNode;
+                }
+            }
+            node = bestNode;
+            cells.add(new Pair(grid.xOf(node), grid.yOf(node)));
+        }
+        Collections.reverse(cells);
+        return new Path(cells, g[endNode], expandedCount);
+    }
+
+    public Pair getStartPos() {
+        return startPos;
+    }
+
+    public Pair getEndPos() {
+        return endPos;
+    }
+}
@@ -0,0 +1,257 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.IndexedMinHeap;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.pathfindingdemo.AStar.SearchWorkspace.CLOSED;
+import static org.pathfindingdemo.AStar.SearchWorkspace.NO_PARENT;
+import static org.pathfindingdemo.AStar.SearchWorkspace.OPEN;
+
+/* #########################
+ * # Class JumpPointSearch #
+ * #########################
+ * Jump point search for 8-connected movement. Instead of adding every neighbor to the open list the search jumps in
+ * straight and diagonal lines and only stops at cells where the best path could turn: the end, cells next to an
+ * impassable corner (forced neighbors) and cells at the border of a region with a different weight.
+ *
+ * The pruning rules only hold where all cells around a node cost the same. A cell with a passable neighbor of a
+ * different weight is marked as mixed. Jumps stop on mixed cells and those are expanded in all 8 directions like
+ * plain A* would, so paths through OBSTACLE regions keep their optimal cost. Inside a uniform region every cell on a
+ * jump has the same weight, so a jump of n steps costs n * weight * step cost.
+ */
+public class JumpPointSearch implements PathEngine {
+    private final SearchGrid grid;
+    private final Heuristic heuristic;
+    private final int stride;
+    private final boolean[] mixed;
+    private final SearchWorkspace workspace;
+    private final int[] directions; // Pairs of x and y directions to jump in from the current node.
+
+    private int endNode;
+    private Pair endPos;
+
+    public JumpPointSearch(MapData mapData, Heuristic heuristic) {
+        this(new SearchGrid(mapData.getGrid()), heuristic);
+    }
+
+    public JumpPointSearch(SearchGrid grid, Heuristic heuristic) {
+        this.grid = grid;
+        this.heuristic = heuristic;
+        stride = grid.getStride();
+        workspace = new SearchWorkspace(grid.getSize());
+        directions = new int[16];
+
+        mixed = new boolean[grid.getSize()];
+        for (int node = 0; node < mixed.length; node++) {
+            if (grid.getWeight(node) == 0)
+                continue;
+
+            for (int offset : grid.getOffsets(Connectivity.EIGHT)) {
+                double weight = grid.getWeight(node + offset);
+                if (weight != 0 && weight != grid.getWeight(node)) {
+                    mixed[node] = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean isBlocked(int node) {
+        return grid.getWeight(node) == 0;
+    }
+
+    // Returns the next jump point from node in the direction (dx, dy), or -1 if the jump runs into a wall.
+    private int jump(int node, int dx, int dy) {
+        int step = dy * stride + dx;
+        int next = node + step;
+        while (true) {
+            if (isBlocked(next))
+                return -1;
+            if (next == endNode || mixed[next])
+                return next;
+
+            if (dx != 0 && dy != 0) {
+                if ((isBlocked(next - dx) && !isBlocked(next - dx + dy * stride)) ||
+                        (isBlocked(next - dy * stride) && !isBlocked(next + dx - dy * stride)))
+                    return next;
+                // A diagonal jump stops where one of its straight jumps finds something.
+                if (jump(next, dx, 0) != -1 || jump(next, 0, dy) != -1)
+                    return next;
+            } else if (dx != 0) {
+                if ((isBlocked(next + stride) && !isBlocked(next + dx + stride)) ||
+                        (isBlocked(next - stride) && !isBlocked(next + dx - stride)))
+                    return next;
+            } else {
+                if ((isBlocked(next + 1) && !isBlocked(next + 1 + dy * stride)) ||
+                        (isBlocked(next - 1) && !isBlocked(next - 1 + dy * stride)))
+                    return next;
+            }
+            next += step;
+        }
+    }
+
+    // Fills directions with the pruned set of directions to jump in from node, returns how many there are.
+    private int findDirections(int node, int parent) {
+        int count = 0;
+        if (parent == NO_PARENT || mixed[node]) {
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx == 0 && dy == 0)
+                        continue;
+
+                    directions[count++] = dx;
+                    directions[count++] = dy;
+                }
+            }
+            return count / 2;
+        }
+
+        int dx = Integer.signum(grid.xOf(node) - grid.xOf(parent));
+        int dy = Integer.signum(grid.yOf(node) - grid.yOf(parent));
+        if (dx != 0 && dy != 0) {
+            directions[count++] = dx;
+            directions[count++] = 0;
+            directions[count++] = 0;
+            directions[count++] = dy;
+            directions[count++] = dx;
+            directions[count++] = dy;
+            if (isBlocked(node - dx)) {
+                directions[count++] = -dx;
+                directions[count++] = dy;
+            }
+            if (isBlocked(node - dy * stride)) {
+                directions[count++] = dx;
+                directions[count++] = -dy;
+            }
+        } else if (dx != 0) {
+            directions[count++] = dx;
+            directions[count++] = 0;
+            if (isBlocked(node + stride)) {
+                directions[count++] = dx;
+                directions[count++] = 1;
+            }
+            if (isBlocked(node - stride)) {
+                directions[count++] = dx;
+                directions[count++] = -1;
+            }
+        } else {
+            directions[count++] = 0;
+            directions[count++] = dy;
+            if (isBlocked(node + 1)) {
+                directions[count++] = 1;
+                directions[count++] = dy;
+            }
+            if (isBlocked(node - 1)) {
+                directions[count++] = -1;
+                directions[count++] = dy;
+            }
+        }
+        return count / 2;
+    }
+
+    // Not kept in the workspace. Open nodes have it in their key, so it's only calculated when a node is reached or
+    // reopened.
+    private double calculateH(int node) {
+        return heuristic.calculate(grid.xOf(node), grid.yOf(node), endPos.getX(), endPos.getY());
+    }
+
+    @Override
+    public Path findPath(Pair startPos, Pair endPos) {
+        if (!grid.isInside(startPos.getX(), startPos.getY()) || !grid.isInside(endPos.getX(), endPos.getY()))
+            throw new IllegalArgumentException("Start or end position is outside the grid");
+
+        double[] g = workspace.g;
+        int[] parents = workspace.parents;
+        IndexedMinHeap openNodes = workspace.openNodes;
+        workspace.begin();
+
+        this.endPos = endPos;
+        endNode = grid.indexOf(endPos.getX(), endPos.getY());
+        int initialNode = grid.indexOf(startPos.getX(), startPos.getY());
+        int expandedCount = 0;
+        if (grid.isPassable(initialNode)) {
+            workspace.reach(initialNode);
+            openNodes.add(initialNode, calculateH(initialNode));
+            workspace.setFlag(initialNode, OPEN);
+        }
+
+        while (!openNodes.isEmpty()) {
+            int currentNode = openNodes.poll();
+            workspace.setFlag(currentNode, CLOSED);
+            expandedCount++;
+            if (currentNode == endNode)
+                return buildPath(g[endNode], expandedCount);
+
+            int currentX = grid.xOf(currentNode);
+            int currentY = grid.yOf(currentNode);
+            int directionCount = findDirections(currentNode, parents[currentNode]);
+            for (int i = 0; i < directionCount; i++) {
+                int jumpNode = jump(currentNode, directions[2 * i], directions[2 * i + 1]);
+                if (jumpNode == -1)
+                    continue;
+
+                // Every cell on the jump has the weight of the jump point, see the class comment.
+                int dx = Math.abs(grid.xOf(jumpNode) - currentX);
+                int dy = Math.abs(grid.yOf(jumpNode) - currentY);
+                double stepCost = dx != 0 && dy != 0 ? AStar.DIAGONAL_COST_FACTOR : 1.;
+                double jumpG = g[currentNode] + Math.max(dx, dy) * grid.getWeight(jumpNode) * stepCost;
+
+                switch (workspace.getFlag(jumpNode)) {
+                    case OPEN:
+                        if (jumpG < g[jumpNode]) {
+                            double key = openNodes.getKey(jumpNode) - (g[jumpNode] - jumpG);
+                            parents[jumpNode] = currentNode;
+                            g[jumpNode] = jumpG;
+                            openNodes.decreaseKey(jumpNode, key);
+                        }
+                        break;
+                    case CLOSED:
+                        if (jumpG < g[jumpNode]) {
+                            parents[jumpNode] = currentNode;
+                            g[jumpNode] = jumpG;
+                            workspace.setFlag(jumpNode, OPEN);
+                            openNodes.add(jumpNode, jumpG + calculateH(jumpNode));
+                        }
+                        break;
+                    default:
+                        workspace.reach(jumpNode);
+                        parents[jumpNode] = currentNode;
+                        g[jumpNode] = jumpG;
+                        workspace.setFlag(jumpNode, OPEN);
+                        openNodes.add(jumpNode, jumpG + calculateH(jumpNode));
+                }
+            }
+        }
+        return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, expandedCount);
+    }
+
+    // Walks the jump points back to the start and fills in the cells between them.
+    private Path buildPath(double cost, int expandedCount) {
+        ArrayList<Pair> cells = new ArrayList<>();
+        int parent = workspace.parents[endNode];
+        int x = grid.xOf(endNode);
+        int y = grid.yOf(endNode);
+        cells.add(new Pair(x, y));
+        while (parent != NO_PARENT) {
+            int parentX = grid.xOf(parent);
+            int parentY = grid.yOf(parent);
+            int dx = Integer.signum(parentX - x);
+            int dy = Integer.signum(parentY - y);
+            while (x != parentX || y != parentY) {
+                x += dx;
+                y += dy;
+                cells.add(new Pair(x, y));
+            }
+            parent = workspace.parents[parent];
+        }
+        Collections.reverse(cells);
+        return new Path(cells, cost, expandedCount);
+    }
+
+    public SearchGrid getGrid() {
+        return grid;
+    }
+}
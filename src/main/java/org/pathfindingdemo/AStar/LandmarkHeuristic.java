@@ -0,0 +1,190 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.IndexedMinHeap;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* ###########################
+ * # Class LandmarkHeuristic #
+ * ###########################
+ * ALT heuristic, A* with Landmarks and the Triangle inequality. A few landmark cells are picked and the exact
+ * cost from every landmark to every cell and from every cell to every landmark is computed up front, with one
+ * Dijkstra per landmark and direction. For any landmark L the triangle inequality gives two lower bounds on the
+ * cost from n to the end:
+ *     cost(L, end) - cost(L, n)    and    cost(n, L) - cost(end, L)
+ * The heuristic is the largest bound over all landmarks. Unlike the distance heuristics these bounds know about
+ * walls and slow cells, so on maze-like maps A* expands far fewer nodes. On open ground far from any landmark
+ * they can be weaker than plain distance though, so the octile distance (Manhattan when 4-connected) is a bound
+ * too. No cell is cheaper than a normal one, so that stays admissible.
+ *
+ * Landmarks are spread around the edge of the map, one per angle sector seen from the map center, which puts
+ * them behind most paths. The Dijkstras run in parallel on a fork-join pool. Costs are kept as floats, all
+ * landmarks of a cell next to each other, and every bound is lowered by the largest rounding error of the floats
+ * so the heuristic stays admissible. It is made for one grid and one connectivity and never changes afterwards,
+ * so it is safe to share between threads.
+ */
+public class LandmarkHeuristic implements CoordinateHeuristic {
+    public final static int DEFAULT_LANDMARK_COUNT = 8;
+    private final static double FLOAT_ERROR = 1. / (1 << 22); // Relative error of a float, with room to spare.
+
+    private final SearchGrid grid;
+    private final Connectivity connectivity;
+    private final CoordinateHeuristic distance;
+    private final int[] landmarks;
+    private final float[] fromLandmarks; // [node * landmarkCount + landmark], cost(landmark, node)
+    private final float[] toLandmarks;   // [node * landmarkCount + landmark], cost(node, landmark)
+
+    public LandmarkHeuristic(SearchGrid grid, Connectivity connectivity) {
+        this(grid, connectivity, DEFAULT_LANDMARK_COUNT, ForkJoinPool.commonPool());
+    }
+
+    public LandmarkHeuristic(SearchGrid grid, Connectivity connectivity, int landmarkCount, ForkJoinPool pool) {
+        if (landmarkCount <= 0)
+            throw new IllegalArgumentException("Landmark count must be positive");
+        if ((long) grid.getSize() * landmarkCount > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid is too big for " + landmarkCount + " landmarks");
+
+        this.grid = grid;
+        this.connectivity = connectivity;
+        distance = connectivity == Connectivity.EIGHT ? Heuristics.DIAGONAL : Heuristics.MANHATTAN;
+        landmarks = pickLandmarks(grid, landmarkCount);
+        fromLandmarks = new float[grid.getSize() * landmarks.length];
+        toLandmarks = new float[grid.getSize() * landmarks.length];
+        if (landmarks.length > 0)
+            pool.invoke(new DistanceTask(0, landmarks.length * 2));
+    }
+
+    // The passable cell farthest from the center in each of landmarkCount angle sectors. Empty sectors get none.
+    private static int[] pickLandmarks(SearchGrid grid, int landmarkCount) {
+        int[] best = new int[landmarkCount];
+        long[] bestDistances = new long[landmarkCount];
+        Arrays.fill(best, -1);
+        Arrays.fill(bestDistances, -1);
+
+        // Doubled coordinates keep the center on the grid for even sizes.
+        int centerX = grid.getWidth() - 1;
+        int centerY = grid.getHeight() - 1;
+        for (int y = 0; y < grid.getHeight(); y++) {
+            for (int x = 0; x < grid.getWidth(); x++) {
+                int node = grid.indexOf(x, y);
+                if (!grid.isPassable(node))
+                    continue;
+
+                long dx = 2L * x - centerX;
+                long dy = 2L * y - centerY;
+                double angle = Math.atan2(dy, dx) + Math.PI;
+                int sector = Math.min((int) (angle / (2 * Math.PI) * landmarkCount), landmarkCount - 1);
+                long distance = dx * dx + dy * dy;
+                if (distance > bestDistances[sector]) {
+                    bestDistances[sector] = distance;
+                    best[sector] = node;
+                }
+            }
+        }
+        return Arrays.stream(best).filter(node -> node != -1).toArray();
+    }
+
+    // One-to-all Dijkstra. Backwards it finds the cost from every node to the landmark instead.
+    private void computeCosts(int landmark, boolean reverse) {
+        int[] offsets = grid.getOffsets(connectivity);
+        double[] stepCosts = grid.getStepCosts(connectivity);
+        double[] costs = new double[grid.getSize()];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        IndexedMinHeap openNodes = new IndexedMinHeap(grid.getSize());
+
+        int source = landmarks[landmark];
+        costs[source] = 0;
+        openNodes.add(source, 0);
+        while (!openNodes.isEmpty()) {
+            int currentNode = openNodes.poll();
+            for (int i = 0; i < offsets.length; i++) {
+                // Going forward costs the weight of the cell entered, going backward the weight of the cell left.
+                int neighNode = reverse ? currentNode - offsets[i] : currentNode + offsets[i];
+                if (!grid.isPassable(neighNode))
+                    continue;
+
+                double weight = grid.getWeight(reverse ? currentNode : neighNode);
+                double neighCost = costs[currentNode] + weight * stepCosts[i];
+                if (neighCost >= costs[neighNode])
+                    continue;
+
+                if (openNodes.contains(neighNode))
+                    openNodes.decreaseKey(neighNode, neighCost);
+                else
+                    openNodes.add(neighNode, neighCost);
+                costs[neighNode] = neighCost;
+            }
+        }
+
+        float[] table = reverse ? toLandmarks : fromLandmarks;
+        for (int node = 0; node < costs.length; node++) {
+            table[node * landmarks.length + landmark] = (float) costs[node];
+        }
+    }
+
+    @Override
+    public double calculate(int fromX, int fromY, int endX, int endY) {
+        int count = landmarks.length;
+        int from = grid.indexOf(fromX, fromY) * count;
+        int end = grid.indexOf(endX, endY) * count;
+
+        double best = distance.calculate(fromX, fromY, endX, endY);
+        for (int i = 0; i < count; i++) {
+            // Skips landmarks that can't reach or be reached, inf - inf has no meaning.
+            double landmarkToEnd = fromLandmarks[end + i];
+            double landmarkToFrom = fromLandmarks[from + i];
+            if (landmarkToEnd != Double.POSITIVE_INFINITY && landmarkToFrom != Double.POSITIVE_INFINITY)
+                best = Math.max(best, landmarkToEnd - landmarkToFrom
+                        - FLOAT_ERROR * (landmarkToEnd + landmarkToFrom));
+
+            double fromToLandmark = toLandmarks[from + i];
+            double endToLandmark = toLandmarks[end + i];
+            if (fromToLandmark != Double.POSITIVE_INFINITY && endToLandmark != Double.POSITIVE_INFINITY)
+                best = Math.max(best, fromToLandmark - endToLandmark
+                        - FLOAT_ERROR * (fromToLandmark + endToLandmark));
+        }
+        return best;
+    }
+
+    public SearchGrid getGrid() {
+        return grid;
+    }
+
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    public Pair getLandmark(int landmark) {
+        return new Pair(grid.xOf(landmarks[landmark]), grid.yOf(landmarks[landmark]));
+    }
+
+    // Runs tasks from up to but not including to. Task t is landmark t / 2, odd tasks run backwards.
+    @SuppressWarnings("serial") // Never serialized, it only runs in the constructor.
+    private class DistanceTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        DistanceTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                computeCosts(from / 2, (from & 1) == 1);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new DistanceTask(from, middle), new DistanceTask(middle, to));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+public class MapData {
+    private Pair startPos;
+    private Pair endPos;
+    private CellGrid grid;
+
+    public MapData(Pair startPos, Pair endPos, CellGrid grid) {
+        this.startPos = startPos;
+        this.endPos = endPos;
+        this.grid = grid;
+    }
+
+    public final Pair getStartPos() {
+        return startPos;
+    }
+
+    public final Pair getEndPos() {
+        return endPos;
+    }
+
+    public final CellGrid getGrid() {
+        return grid;
+    }
+
+    public final int getMapWidth() {
+        return grid.getMapWidth();
+    }
+
+    public final int getMapHeight() {
+        return grid.getMapHeight();
+    }
+}
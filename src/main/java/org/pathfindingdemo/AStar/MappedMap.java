@@ -0,0 +1,170 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/* ###################
+ * # Class MappedMap #
+ * ###################
+ * Map in the versioned pfmap format, read in place through a memory mapped file. Opening a map only maps the file,
+ * cells are read from the page cache when they are asked for and are never copied onto the heap. Files larger than
+ * what a single MappedByteBuffer can hold are mapped in several segments.
+ *
+ * File structure of pfmap files, all ints are 32 bit big endian:
+ * ----------------------------------------------------------------------------------------------------
+ * byte | 0 - 3 | 4 - 7   | 8 - 11 | 12 - 15 | 16 - 19  | 20 - 23  | 24 - 27 | 28 - 31 | 32 - n
+ * data | magic | version | width  | height  | start x  | start y  | end x   | end y   | cells
+ * ----------------------------------------------------------------------------------------------------
+ * Cells are stored row by row with 2 bits per cell, four cells to a byte starting at the lowest bits. A cell is the
+ * ordinal of its CellType.
+ */
+public class MappedMap implements CellGrid {
+    public final static int MAGIC = 0x50464d50; // "PFMP"
+    public final static int VERSION = 1;
+    public final static int HEADER_SIZE = 32;
+    private final static int SEGMENT_SHIFT = 30; // 1 GB per mapped segment
+    private final static long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private final static CellType[] CELL_TYPES = CellType.values();
+
+    private final MappedByteBuffer[] segments;
+    private final int width;
+    private final int height;
+    private final Pair startPos;
+    private final Pair endPos;
+
+    private MappedMap(MappedByteBuffer[] segments, int width, int height, Pair startPos, Pair endPos) {
+        this.segments = segments;
+        this.width = width;
+        this.height = height;
+        this.startPos = startPos;
+        this.endPos = endPos;
+    }
+
+    static long fileSize(long width, long height) {
+        return HEADER_SIZE + (width * height + 3) / 4;
+    }
+
+    // Reads and checks the magic and version, the returned buffer is positioned at the width.
+    static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0)
+                throw new IOException("File is too short for a map header");
+        }
+        header.flip();
+
+        if (header.getInt() != MAGIC)
+            throw new IOException("Not a pfmap file");
+        int version = header.getInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported pfmap version " + version);
+        return header;
+    }
+
+    public static MappedMap open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            ByteBuffer header = readHeader(channel);
+            int width = header.getInt();
+            int height = header.getInt();
+            Pair startPos = new Pair(header.getInt(), header.getInt());
+            Pair endPos = new Pair(header.getInt(), header.getInt());
+            if (width <= 0 || height <= 0 || channel.size() < fileSize(width, height))
+                throw new IOException("Map size doesn't match the file size");
+
+            // The mappings stay valid after the channel is closed.
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(size - position, 1L << SEGMENT_SHIFT));
+            }
+            return new MappedMap(segments, width, height, startPos, endPos);
+        }
+    }
+
+    public static void write(File file, MapData mapData) throws IOException {
+        CellGrid grid = mapData.getGrid();
+        int width = grid.getMapWidth();
+        int height = grid.getMapHeight();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(0);
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(width);
+            buffer.putInt(height);
+            buffer.putInt(mapData.getStartPos().getX());
+            buffer.putInt(mapData.getStartPos().getY());
+            buffer.putInt(mapData.getEndPos().getX());
+            buffer.putInt(mapData.getEndPos().getY());
+
+            int packed = 0;
+            long cell = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    packed |= grid.getCell(x, y).ordinal() << (2 * (int) (cell & 3));
+                    if ((++cell & 3) == 0) {
+                        buffer.put((byte) packed);
+                        packed = 0;
+                        if (!buffer.hasRemaining())
+                            flush(channel, buffer);
+                    }
+                }
+            }
+            if ((cell & 3) != 0)
+                buffer.put((byte) packed);
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public CellType getCell(int x, int y) {
+        long cell = (long) y * width + x;
+        long position = HEADER_SIZE + (cell >>> 2);
+        int packed = segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+        int ordinal = (packed >>> (2 * (int) (cell & 3))) & 3;
+        // 3 isn't a cell type, treat it as a wall rather than failing in the middle of a search.
+        return ordinal < CELL_TYPES.length ? CELL_TYPES[ordinal] : CellType.IMPASSABLE;
+    }
+
+    // The cells stay in the file, copy them with CompactGrid.copyOf() to edit them.
+    public MapData toMapData() {
+        return new MapData(startPos, endPos, this);
+    }
+
+    @Override
+    public int getMapWidth() {
+        return width;
+    }
+
+    @Override
+    public int getMapHeight() {
+        return height;
+    }
+
+    public Pair getStartPos() {
+        return startPos;
+    }
+
+    public Pair getEndPos() {
+        return endPos;
+    }
+}
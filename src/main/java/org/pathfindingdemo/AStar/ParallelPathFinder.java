@@ -0,0 +1,108 @@
+package org.pathfindingdemo.AStar;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* ############################
+ * # Class ParallelPathFinder #
+ * ############################
+ * Solves batches of path queries on a fork-join pool. The SearchGrid and its ConnectivityIndex are shared read-only
+ * by all threads. Every task borrows a PathFinder, and so a workspace, from a queue owned by this finder and puts it
+ * back when it's done. So there are never more of them than tasks running at once, and unlike thread locals on the
+ * long-lived pool threads they go away together with the finder. The heuristic is called from several threads at
+ * once and must not keep any state.
+ */
+public class ParallelPathFinder {
+    private final static int QUERIES_PER_TASK = 16; // Below this a batch is solved on one thread.
+
+    private final SearchGrid grid;
+    private final Heuristic heuristic;
+    private final Connectivity connectivity;
+    private final ConnectivityIndex connectivityIndex;
+    private final ForkJoinPool pool;
+    private final ConcurrentLinkedQueue<PathFinder> idleFinders;
+    private volatile SearchListener listener;
+    private volatile double heuristicWeight = 1;
+
+    public ParallelPathFinder(MapData mapData, Heuristic heuristic) {
+        this(new SearchGrid(mapData.getGrid()), heuristic, Connectivity.EIGHT, ForkJoinPool.commonPool());
+    }
+
+    public ParallelPathFinder(SearchGrid grid, Heuristic heuristic, Connectivity connectivity, ForkJoinPool pool) {
+        this.grid = grid;
+        this.heuristic = heuristic;
+        this.connectivity = connectivity;
+        this.pool = pool;
+        connectivityIndex = new ConnectivityIndex(grid, connectivity);
+        idleFinders = new ConcurrentLinkedQueue<>();
+    }
+
+    // The result list has the same order as the queries.
+    public List<Path> findPaths(List<PathQuery> queries) {
+        Path[] paths = new Path[queries.size()];
+        pool.invoke(new QueryTask(queries, paths, 0, queries.size()));
+        return Arrays.asList(paths);
+    }
+
+    // Called from the worker threads, so it has to be thread safe like SearchMetrics.
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    // Weighted A* for all queries, see AStar.setHeuristicWeight().
+    public void setHeuristicWeight(double heuristicWeight) {
+        if (!(heuristicWeight >= 1))
+            throw new IllegalArgumentException("Heuristic weight must be at least 1");
+
+        this.heuristicWeight = heuristicWeight;
+    }
+
+    public SearchGrid getGrid() {
+        return grid;
+    }
+
+    // A new one is only made when all the others are in use.
+    private PathFinder borrowFinder() {
+        PathFinder pathFinder = idleFinders.poll();
+        return pathFinder != null ? pathFinder : new PathFinder(grid, heuristic, connectivity, connectivityIndex);
+    }
+
+    @SuppressWarnings("serial") // Never serialized, it only lives inside findPaths().
+    private class QueryTask extends RecursiveAction {
+        private final List<PathQuery> queries;
+        private final Path[] paths;
+        private final int from;
+        private final int to;
+
+        QueryTask(List<PathQuery> queries, Path[] paths, int from, int to) {
+            this.queries = queries;
+            this.paths = paths;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= QUERIES_PER_TASK) {
+                PathFinder pathFinder = borrowFinder();
+                try {
+                    pathFinder.setListener(listener);
+                    pathFinder.setHeuristicWeight(heuristicWeight);
+                    for (int i = from; i < to; i++) {
+                        PathQuery query = queries.get(i);
+                        paths[i] = pathFinder.findPath(query.getStartPos(), query.getEndPos());
+                    }
+                } finally {
+                    idleFinders.add(pathFinder);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new QueryTask(queries, paths, from, middle), new QueryTask(queries, paths, middle, to));
+        }
+    }
+}
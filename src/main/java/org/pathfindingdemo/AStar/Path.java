@@ -0,0 +1,36 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.List;
+
+// Result of a path query. If no path was found the cell list is empty and the cost is infinite.
+public class Path {
+    private final List<Pair> cells;
+    private final double cost;
+    private final int expandedCount;
+
+    public Path(List<Pair> cells, double cost, int expandedCount) {
+        this.cells = cells;
+        this.cost = cost;
+        this.expandedCount = expandedCount;
+    }
+
+    public boolean isFound() {
+        return !cells.isEmpty();
+    }
+
+    // From the start cell to the end cell, both included.
+    public final List<Pair> getCells() {
+        return cells;
+    }
+
+    public final double getCost() {
+        return cost;
+    }
+
+    // How many nodes the search expanded to get this result.
+    public final int getExpandedCount() {
+        return expandedCount;
+    }
+}
@@ -0,0 +1,136 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* ###################
+ * # Class PathCache #
+ * ###################
+ * Least recently used cache of finished path queries, put in front of a PathEngine. An answer is found again by
+ * map version, connectivity, heuristic, heuristic weight, start and end. The map version is a stamp the owner of
+ * the map raises on every edit. The cache only keeps answers for the newest version it has seen and empties itself
+ * as soon as a query comes in with a newer one, so edits never return stale paths. Queries with an older version
+ * are searched but not cached, a caller that lags behind can't throw away the newer answers. Heuristics are told
+ * apart by identity.
+ *
+ * Lookups are synchronized so agents on several threads can share one cache, the search on a miss runs outside
+ * the lock. Cached paths have unmodifiable cell lists since they are handed out more than once.
+ */
+public class PathCache {
+    public final static int DEFAULT_CAPACITY = 1024;
+
+    private final LinkedHashMap<Key, Path> paths; // In access order, the eldest is evicted first.
+    private long mapVersion = Long.MIN_VALUE; // The newest seen so far.
+    private long hitCount;
+    private long missCount;
+
+    public PathCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PathCache(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+
+        paths = new LinkedHashMap<Key, Path>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Path> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // For engines that always search with heuristic weight 1, like JumpPointSearch.
+    public Path findPath(long mapVersion, Connectivity connectivity, Heuristic heuristic,
+                         Pair startPos, Pair endPos, PathEngine engine) {
+        return findPath(mapVersion, connectivity, heuristic, 1, startPos, endPos, engine);
+    }
+
+    // engine is only asked on a miss and has to search with the given connectivity, heuristic and weight, see
+    // PathFinder.setHeuristicWeight().
+    public Path findPath(long mapVersion, Connectivity connectivity, Heuristic heuristic, double heuristicWeight,
+                         Pair startPos, Pair endPos, PathEngine engine) {
+        Key key = new Key(mapVersion, connectivity, heuristic, heuristicWeight, startPos, endPos);
+        synchronized (this) {
+            if (mapVersion > this.mapVersion) {
+                paths.clear();
+                this.mapVersion = mapVersion;
+            }
+            // Nothing is cached for older versions, no need to look.
+            Path path = mapVersion == this.mapVersion ? paths.get(key) : null;
+            if (path != null) {
+                hitCount++;
+                return path;
+            }
+            missCount++;
+        }
+
+        Path path = engine.findPath(startPos, endPos);
+        path = new Path(Collections.unmodifiableList(path.getCells()), path.getCost(), path.getExpandedCount());
+        synchronized (this) {
+            // The map may have changed during the search, then this answer is already stale.
+            if (mapVersion == this.mapVersion)
+                paths.put(key, path);
+        }
+        return path;
+    }
+
+    public synchronized void clear() {
+        paths.clear();
+    }
+
+    public synchronized int size() {
+        return paths.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private static class Key {
+        private final long mapVersion;
+        private final Connectivity connectivity;
+        private final Heuristic heuristic;
+        private final double heuristicWeight;
+        private final Pair startPos;
+        private final Pair endPos;
+
+        Key(long mapVersion, Connectivity connectivity, Heuristic heuristic, double heuristicWeight,
+            Pair startPos, Pair endPos) {
+            this.mapVersion = mapVersion;
+            this.connectivity = connectivity;
+            this.heuristic = heuristic;
+            this.heuristicWeight = heuristicWeight;
+            this.startPos = startPos;
+            this.endPos = endPos;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+
+            Key k = (Key) o;
+
+            return mapVersion == k.mapVersion && connectivity == k.connectivity && heuristic == k.heuristic &&
+                    heuristicWeight == k.heuristicWeight && startPos.equals(k.startPos) && endPos.equals(k.endPos);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Long.hashCode(mapVersion);
+            hash = 31 * hash + connectivity.hashCode();
+            hash = 31 * hash + System.identityHashCode(heuristic);
+            hash = 31 * hash + Double.hashCode(heuristicWeight);
+            hash = 31 * hash + startPos.hashCode();
+            return 31 * hash + endPos.hashCode();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+// Anything that can answer a single path query from start to end.
+public interface PathEngine {
+    Path findPath(Pair startPos, Pair endPos);
+}
@@ -0,0 +1,112 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/* ####################
+ * # Class PathFinder #
+ * ####################
+ * Headless front end to AStar. Runs every query to completion against one grid and reuses a single workspace
+ * between queries. Queries between cells in different connected components are answered from a ConnectivityIndex
+ * without searching. Not thread safe, use one PathFinder per thread or a ParallelPathFinder.
+ */
+public class PathFinder implements PathEngine {
+    private final SearchGrid grid;
+    private final Heuristic heuristic;
+    private final Connectivity connectivity;
+    private final SearchWorkspace workspace;
+    private final ConnectivityIndex connectivityIndex;
+    private SearchListener listener;
+    private double heuristicWeight = 1;
+
+    public PathFinder(MapData mapData, Heuristic heuristic) {
+        this(new SearchGrid(mapData.getGrid()), heuristic, Connectivity.EIGHT);
+    }
+
+    public PathFinder(SearchGrid grid, Heuristic heuristic, Connectivity connectivity) {
+        this(grid, heuristic, connectivity, new ConnectivityIndex(grid, connectivity));
+    }
+
+    // Lets several finders on the same grid share one index.
+    public PathFinder(SearchGrid grid, Heuristic heuristic, Connectivity connectivity,
+                      ConnectivityIndex connectivityIndex) {
+        if (connectivityIndex.getGrid() != grid || connectivityIndex.getConnectivity() != connectivity)
+            throw new IllegalArgumentException("Connectivity index was built for another grid or connectivity");
+
+        this.grid = grid;
+        this.heuristic = heuristic;
+        this.connectivity = connectivity;
+        this.connectivityIndex = connectivityIndex;
+        workspace = new SearchWorkspace(grid.getSize());
+    }
+
+    @Override
+    public Path findPath(Pair startPos, Pair endPos) {
+        if (!grid.isInside(startPos.getX(), startPos.getY()) || !grid.isInside(endPos.getX(), endPos.getY()))
+            throw new IllegalArgumentException("Start or end position is outside the grid");
+
+        if (!connectivityIndex.isConnected(startPos, endPos))
+            return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, 0);
+
+        AStar aStar = new AStar(startPos, endPos, grid, heuristic, connectivity, workspace);
+        aStar.setListener(listener);
+        aStar.setHeuristicWeight(heuristicWeight);
+        aStar.iterate(Integer.MAX_VALUE);
+        return aStar.getPath();
+    }
+
+    // Like findPath() but records the search, the path is at the end of the trace. Always searches, even between
+    // cells the connectivity index knows are not connected, so the trace shows the search giving up.
+    public SearchTrace findPathTraced(Pair startPos, Pair endPos, String description) {
+        if (!grid.isInside(startPos.getX(), startPos.getY()) || !grid.isInside(endPos.getX(), endPos.getY()))
+            throw new IllegalArgumentException("Start or end position is outside the grid");
+
+        AStar aStar = new AStar(startPos, endPos, grid, heuristic, connectivity, workspace);
+        aStar.setListener(listener);
+        aStar.setHeuristicWeight(heuristicWeight);
+        aStar.setRecording(true);
+        aStar.iterate(Integer.MAX_VALUE);
+        return aStar.getTrace(description);
+    }
+
+    // The result list has the same order as the queries.
+    public List<Path> findPaths(List<PathQuery> queries) {
+        ArrayList<Path> paths = new ArrayList<>(queries.size());
+        for (PathQuery query : queries) {
+            paths.add(findPath(query.getStartPos(), query.getEndPos()));
+        }
+        return paths;
+    }
+
+    // Told about every query that is searched. Queries the connectivity index answers never reach AStar.
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    // Weighted A*, see AStar.setHeuristicWeight(). 1 gives optimal paths.
+    public void setHeuristicWeight(double heuristicWeight) {
+        if (!(heuristicWeight >= 1))
+            throw new IllegalArgumentException("Heuristic weight must be at least 1");
+
+        this.heuristicWeight = heuristicWeight;
+    }
+
+    public double getHeuristicWeight() {
+        return heuristicWeight;
+    }
+
+    public SearchGrid getGrid() {
+        return grid;
+    }
+
+    public Heuristic getHeuristic() {
+        return heuristic;
+    }
+
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+}
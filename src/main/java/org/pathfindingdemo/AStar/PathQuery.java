@@ -0,0 +1,21 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+public class PathQuery {
+    private final Pair startPos;
+    private final Pair endPos;
+
+    public PathQuery(Pair startPos, Pair endPos) {
+        this.startPos = startPos;
+        this.endPos = endPos;
+    }
+
+    public final Pair getStartPos() {
+        return startPos;
+    }
+
+    public final Pair getEndPos() {
+        return endPos;
+    }
+}
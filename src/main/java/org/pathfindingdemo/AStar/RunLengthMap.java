@@ -0,0 +1,180 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/* ######################
+ * # Class RunLengthMap #
+ * ######################
+ * Reads and writes maps in the pfrle format, where the cells are stored as runs of the same CellType. Maps are
+ * mostly long runs of open ground and walls, so this is a lot smaller than the 2 bits per cell of a pfmap file.
+ * The runs can also be deflated. Unlike pfmap files the cells can't be read in place, a map is always read whole
+ * into a CompactGrid.
+ *
+ * File structure of pfrle files, all ints are 32 bit big endian:
+ * ---------------------------------------------------------------------------------------------------------------
+ * byte | 0 - 3 | 4 - 7   | 8 - 11 | 12 - 15 | 16 - 19 | 20 - 23 | 24 - 27 | 28 - 31 | 32 - 35 | 36 - n
+ * data | magic | version | flags  | width   | height  | start x | start y | end x   | end y   | runs
+ * ---------------------------------------------------------------------------------------------------------------
+ * Runs follow the cells row by row and may go past the end of a row. The first byte of a run has the CellType
+ * ordinal in bits 0 - 1 and the lowest 5 bits of the run length minus one in bits 2 - 6. Bit 7 is set if more
+ * bytes of the length follow, 7 bits per byte with bit 7 as the same continue flag. With FLAG_DEFLATED everything
+ * after the header is deflated.
+ */
+public class RunLengthMap {
+    public final static int MAGIC = 0x5046524c; // "PFRL"
+    public final static int VERSION = 1;
+    public final static int FLAG_DEFLATED = 1;
+    private final static int BUFFER_SIZE = 1 << 16;
+    private final static int IMPASSABLE = CellType.IMPASSABLE.ordinal();
+
+    public static MapData read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            if (header.readInt() != MAGIC)
+                throw new IOException("Not a pfrle file");
+            int version = header.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported pfrle version " + version);
+
+            int flags = header.readInt();
+            int width = header.readInt();
+            int height = header.readInt();
+            Pair startPos = new Pair(header.readInt(), header.readInt());
+            Pair endPos = new Pair(header.readInt(), header.readInt());
+            if (width <= 0 || height <= 0)
+                throw new IOException("Invalid map size " + width + "x" + height);
+
+            // The header stream is buffered, so the runs have to be read through it too.
+            Inflater inflater = (flags & FLAG_DEFLATED) != 0 ? new Inflater() : null;
+            try {
+                InputStream in = header;
+                if (inflater != null)
+                    in = new BufferedInputStream(new InflaterInputStream(header, inflater), BUFFER_SIZE);
+
+                CompactGrid grid = new CompactGrid(width, height);
+                readRuns(in, grid);
+                return new MapData(startPos, endPos, grid);
+            } finally {
+                if (inflater != null)
+                    inflater.end();
+            }
+        }
+    }
+
+    // Fills the whole grid from runs, SearchTrace stores its map the same way.
+    static void readRuns(InputStream in, CompactGrid grid) throws IOException {
+        long cellCount = (long) grid.getMapWidth() * grid.getMapHeight();
+        long cell = 0;
+        while (cell < cellCount) {
+            int first = readByte(in);
+            int ordinal = first & 3;
+            long length = (first >>> 2) & 0x1f;
+            int shift = 5;
+            for (int next = first; (next & 0x80) != 0; shift += 7) {
+                if (shift > 56)
+                    throw new IOException("Run length is too long");
+                next = readByte(in);
+                length |= (long) (next & 0x7f) << shift;
+            }
+            length++;
+            if (length > cellCount - cell)
+                throw new IOException("Runs don't match the map size");
+
+            // 3 isn't a cell type, read it as a wall like MappedMap does.
+            grid.fillOrdinal(cell, cell + length, ordinal == 3 ? IMPASSABLE : ordinal);
+            cell += length;
+        }
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int value = in.read();
+        if (value < 0)
+            throw new EOFException("Map file ended before all cells were read");
+        return value;
+    }
+
+    public static void write(File file, MapData mapData, boolean deflate) throws IOException {
+        CellGrid grid = mapData.getGrid();
+        int width = grid.getMapWidth();
+        int height = grid.getMapHeight();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream fileOut = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            DataOutputStream header = new DataOutputStream(fileOut);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(deflate ? FLAG_DEFLATED : 0);
+            header.writeInt(width);
+            header.writeInt(height);
+            header.writeInt(mapData.getStartPos().getX());
+            header.writeInt(mapData.getStartPos().getY());
+            header.writeInt(mapData.getEndPos().getX());
+            header.writeInt(mapData.getEndPos().getY());
+            header.flush();
+
+            Deflater deflater = deflate ? new Deflater(Deflater.BEST_SPEED) : null;
+            try {
+                OutputStream out = fileOut;
+                if (deflate)
+                    out = new BufferedOutputStream(new DeflaterOutputStream(fileOut, deflater, BUFFER_SIZE),
+                            BUFFER_SIZE);
+
+                writeRuns(out, grid);
+                // Closing finishes the deflate stream and flushes everything down to the channel.
+                out.close();
+            } finally {
+                if (deflater != null)
+                    deflater.end();
+            }
+        }
+    }
+
+    static void writeRuns(OutputStream out, CellGrid grid) throws IOException {
+        CellType runType = null;
+        long runLength = 0;
+        for (int y = 0; y < grid.getMapHeight(); y++) {
+            for (int x = 0; x < grid.getMapWidth(); x++) {
+                CellType cellType = grid.getCell(x, y);
+                if (cellType != runType) {
+                    if (runLength > 0)
+                        writeRun(out, runType, runLength);
+                    runType = cellType;
+                    runLength = 0;
+                }
+                runLength++;
+            }
+        }
+        writeRun(out, runType, runLength);
+    }
+
+    private static void writeRun(OutputStream out, CellType cellType, long length) throws IOException {
+        long rest = length - 1;
+        int first = cellType.ordinal() | (int) (rest & 0x1f) << 2;
+        rest >>>= 5;
+        out.write(rest != 0 ? first | 0x80 : first);
+        while (rest != 0) {
+            int next = (int) (rest & 0x7f);
+            rest >>>= 7;
+            out.write(rest != 0 ? next | 0x80 : next);
+        }
+    }
+}
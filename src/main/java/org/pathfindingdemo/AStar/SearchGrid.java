@@ -0,0 +1,146 @@
+package org.pathfindingdemo.AStar;
+
+/* ####################
+ * # Class SearchGrid #
+ * ####################
+ * Read-only copy of a map laid out for searching. Cells are stored row by row in a CompactGrid, 2 bits per cell,
+ * with a border of impassable cells around the map, so stepping to a neighbor is a single index offset and never
+ * leaves the grid. Weights are looked up from the cell type when they are read.
+ * The offsets and the step cost for every move are calculated once per grid. A SearchGrid never changes after
+ * construction and can be shared between threads.
+ *
+ *   index = (y + 1) * stride + (x + 1), stride = width + 2
+ */
+public class SearchGrid {
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final static double[] WEIGHTS = new double[4]; // CellType ordinal -> weight, 0 for impassable.
+    private final static int IMPASSABLE = CellType.IMPASSABLE.ordinal();
+
+    private final CompactGrid cells; // (width + 2) x (height + 2), the outer ring is the border.
+    private final int[][] offsets; // [connectivity][neighbor] -> index offset
+    private final double[][] stepCosts; // [connectivity][neighbor] -> cost factor of the move
+
+    static {
+        for (CellType cellType : CellType.values()) {
+            WEIGHTS[cellType.ordinal()] = weightOf(cellType);
+        }
+    }
+
+    public SearchGrid(CellType[][] grid, int width, int height) {
+        this(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                cells.setOrdinal(indexOf(x, y), grid[x][y].ordinal());
+            }
+        }
+    }
+
+    public SearchGrid(CellGrid grid) {
+        this(grid.getMapWidth(), grid.getMapHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                cells.setOrdinal(indexOf(x, y), grid.getCell(x, y).ordinal());
+            }
+        }
+    }
+
+    private SearchGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        stride = width + 2;
+        cells = new CompactGrid(stride, height + 2);
+        for (int x = 0; x < stride; x++) {
+            cells.setCell(x, 0, CellType.IMPASSABLE);
+            cells.setCell(x, height + 1, CellType.IMPASSABLE);
+        }
+        for (int y = 0; y < height + 2; y++) {
+            cells.setCell(0, y, CellType.IMPASSABLE);
+            cells.setCell(stride - 1, y, CellType.IMPASSABLE);
+        }
+
+        Connectivity[] connectivities = Connectivity.values();
+        offsets = new int[connectivities.length][];
+        stepCosts = new double[connectivities.length][];
+        for (Connectivity connectivity : connectivities) {
+            int count = connectivity.getNeighborCount();
+            int[] connOffsets = new int[count];
+            double[] connCosts = new double[count];
+            for (int i = 0; i < count; i++) {
+                connOffsets[i] = connectivity.getYOffset(i) * stride + connectivity.getXOffset(i);
+                connCosts[i] = connectivity.isDiagonal(i) ? AStar.DIAGONAL_COST_FACTOR : 1.;
+            }
+            offsets[connectivity.ordinal()] = connOffsets;
+            stepCosts[connectivity.ordinal()] = connCosts;
+        }
+    }
+
+    // 0 means the cell can't be entered.
+    public static double weightOf(CellType cellType) {
+        switch (cellType) {
+            case NORMAL:
+                return AStar.NORMAL_WEIGHT;
+            case OBSTACLE:
+                return AStar.OBSTACLE_WEIGHT;
+            default:
+                return 0;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Number of indices including the border, the capacity a SearchWorkspace needs for this grid.
+    public int getSize() {
+        return stride * (height + 2);
+    }
+
+    public int indexOf(int x, int y) {
+        return (y + 1) * stride + x + 1;
+    }
+
+    public int xOf(int index) {
+        return index % stride - 1;
+    }
+
+    public int yOf(int index) {
+        return index / stride - 1;
+    }
+
+    public CellType getCell(int x, int y) {
+        return cells.getCell(x + 1, y + 1);
+    }
+
+    // 0 means the cell can't be entered.
+    public double getWeight(int index) {
+        return WEIGHTS[cells.getOrdinal(index)];
+    }
+
+    public boolean isPassable(int index) {
+        return cells.getOrdinal(index) != IMPASSABLE;
+    }
+
+    public boolean isInside(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    // Index offset between two vertically adjacent cells.
+    int getStride() {
+        return stride;
+    }
+
+    // The returned arrays are shared, don't modify them.
+    int[] getOffsets(Connectivity connectivity) {
+        return offsets[connectivity.ordinal()];
+    }
+
+    double[] getStepCosts(Connectivity connectivity) {
+        return stepCosts[connectivity.ordinal()];
+    }
+}
@@ -0,0 +1,7 @@
+package org.pathfindingdemo.AStar;
+
+// Told about every AStar search once it has found a path or given up. Called on the thread running the search.
+@FunctionalInterface
+public interface SearchListener {
+    void searchFinished(SearchStats stats);
+}
@@ -0,0 +1,142 @@
+package org.pathfindingdemo.AStar;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/* #######################
+ * # Class SearchMetrics #
+ * #######################
+ * A SearchListener that adds up the stats of every search it is told about, so they can be watched while the
+ * program runs. Registered with register() the totals show up as an MBean on the platform MBean server, under
+ * org.pathfindingdemo:type=SearchMetrics,name=<name>.
+ *
+ * The counts tell slow searches apart: a bad heuristic shows up as many expanded nodes, an inconsistent one as
+ * reopened nodes, and a huge frontier as a high peak open count and many heap operations per expanded node.
+ * Synchronized, one instance can listen to searches on several threads.
+ */
+public class SearchMetrics implements SearchListener, SearchMetricsMBean {
+    public final static String DOMAIN = "org.pathfindingdemo";
+
+    private long searchCount;
+    private long pathFoundCount;
+    private long expandedCount;
+    private long reopenedCount;
+    private long heapOperationCount;
+    private long heuristicCount;
+    private int peakOpenCount;
+    private long searchNanos;
+    private SearchStats lastStats;
+
+    @Override
+    public synchronized void searchFinished(SearchStats stats) {
+        searchCount++;
+        if (stats.getState() == AStar.State.PATH_FOUND)
+            pathFoundCount++;
+        expandedCount += stats.getExpandedCount();
+        reopenedCount += stats.getReopenedCount();
+        heapOperationCount += stats.getHeapOperationCount();
+        heuristicCount += stats.getHeuristicCount();
+        peakOpenCount = Math.max(peakOpenCount, stats.getPeakOpenCount());
+        searchNanos += stats.getSearchNanos();
+        lastStats = stats;
+    }
+
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(DOMAIN + ":type=SearchMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    public static void unregister(ObjectName objectName) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+
+    // null until the first search has finished.
+    public synchronized SearchStats getLastStats() {
+        return lastStats;
+    }
+
+    @Override
+    public synchronized long getSearchCount() {
+        return searchCount;
+    }
+
+    @Override
+    public synchronized long getPathFoundCount() {
+        return pathFoundCount;
+    }
+
+    @Override
+    public synchronized long getExpandedCount() {
+        return expandedCount;
+    }
+
+    @Override
+    public synchronized long getReopenedCount() {
+        return reopenedCount;
+    }
+
+    @Override
+    public synchronized long getHeapOperationCount() {
+        return heapOperationCount;
+    }
+
+    @Override
+    public synchronized long getHeuristicCount() {
+        return heuristicCount;
+    }
+
+    @Override
+    public synchronized int getPeakOpenCount() {
+        return peakOpenCount;
+    }
+
+    @Override
+    public synchronized double getTotalSearchMillis() {
+        return searchNanos / 1e6;
+    }
+
+    @Override
+    public synchronized double getAverageSearchMillis() {
+        return searchCount == 0 ? 0 : searchNanos / 1e6 / searchCount;
+    }
+
+    @Override
+    public synchronized double getAverageExpandedCount() {
+        return searchCount == 0 ? 0 : (double) expandedCount / searchCount;
+    }
+
+    @Override
+    public synchronized int getLastExpandedCount() {
+        return lastStats == null ? 0 : lastStats.getExpandedCount();
+    }
+
+    @Override
+    public synchronized int getLastReopenedCount() {
+        return lastStats == null ? 0 : lastStats.getReopenedCount();
+    }
+
+    @Override
+    public synchronized int getLastPeakOpenCount() {
+        return lastStats == null ? 0 : lastStats.getPeakOpenCount();
+    }
+
+    @Override
+    public synchronized double getLastSearchMillis() {
+        return lastStats == null ? 0 : lastStats.getSearchNanos() / 1e6;
+    }
+
+    @Override
+    public synchronized void reset() {
+        searchCount = 0;
+        pathFoundCount = 0;
+        expandedCount = 0;
+        reopenedCount = 0;
+        heapOperationCount = 0;
+        heuristicCount = 0;
+        peakOpenCount = 0;
+        searchNanos = 0;
+        lastStats = null;
+    }
+}
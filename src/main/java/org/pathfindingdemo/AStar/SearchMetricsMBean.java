@@ -0,0 +1,36 @@
+package org.pathfindingdemo.AStar;
+
+// Management interface of SearchMetrics, what JConsole and other JMX clients see. Counts are totals over all
+// searches since the last reset, the Last attributes are from the newest search.
+public interface SearchMetricsMBean {
+    long getSearchCount();
+
+    long getPathFoundCount();
+
+    long getExpandedCount();
+
+    long getReopenedCount();
+
+    long getHeapOperationCount();
+
+    long getHeuristicCount();
+
+    // The largest open list of any search.
+    int getPeakOpenCount();
+
+    double getTotalSearchMillis();
+
+    double getAverageSearchMillis();
+
+    double getAverageExpandedCount();
+
+    int getLastExpandedCount();
+
+    int getLastReopenedCount();
+
+    int getLastPeakOpenCount();
+
+    double getLastSearchMillis();
+
+    void reset();
+}
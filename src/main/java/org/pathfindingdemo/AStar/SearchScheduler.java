@@ -0,0 +1,245 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/* #########################
+ * # Class SearchScheduler #
+ * #########################
+ * Spreads many path queries over frames. Queries are submitted at any time and tick() moves them on within a budget
+ * of nodes, time or both, so no frame pays for a long search all at once. The searches in flight take turns of a
+ * slice of nodes each, and the turns carry on where the last tick left off, so every query makes progress.
+ *
+ * Every search in flight needs a SearchWorkspace as big as the grid, so only a limited number run at the same time
+ * and the rest wait in submission order. Workspaces are reused once their search is done. Making one takes time in
+ * proportion to the map size, so a tick makes at most one and the number in flight grows over the first ticks.
+ * Queries between cells in different connected components are answered from a ConnectivityIndex right away. Not
+ * thread safe, submit and tick from the same thread.
+ */
+public class SearchScheduler {
+    public final static int DEFAULT_MAX_ACTIVE_SEARCHES = 16;
+    public final static int DEFAULT_SLICE_SIZE = 64;
+
+    // A submitted query. The path is there once it's done.
+    public class Request {
+        private final Pair startPos;
+        private final Pair endPos;
+        private AStar aStar; // null while waiting and once done.
+        private SearchWorkspace workspace;
+        private Path path;
+        private int expandedCount;
+        private boolean cancelled;
+
+        private Request(Pair startPos, Pair endPos) {
+            this.startPos = startPos;
+            this.endPos = endPos;
+        }
+
+        public Pair getStartPos() {
+            return startPos;
+        }
+
+        public Pair getEndPos() {
+            return endPos;
+        }
+
+        public boolean isDone() {
+            return path != null;
+        }
+
+        // Still waiting for a workspace, nothing has been searched yet.
+        public boolean isWaiting() {
+            return path == null && aStar == null && !cancelled;
+        }
+
+        // null until it's done, empty if there is no path.
+        public Path getPath() {
+            return path;
+        }
+
+        // Nodes expanded so far, to tell how far along the search is.
+        public int getExpandedCount() {
+            return aStar != null ? aStar.getExpandedCount() : expandedCount;
+        }
+
+        // Drops the query, its path will never be there.
+        public void cancel() {
+            if (path != null || cancelled)
+                return;
+
+            cancelled = true;
+            if (aStar == null) {
+                waiting.remove(this);
+            } else {
+                // The searches after it move down one index, the one in turn has to stay in turn.
+                int index = active.indexOf(this);
+                active.remove(index);
+                if (index < nextTurn)
+                    nextTurn--;
+                release(this);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private final SearchGrid grid;
+    private final Heuristic heuristic;
+    private final Connectivity connectivity;
+    private final ConnectivityIndex connectivityIndex;
+    private final int maxActiveSearches;
+    private final ArrayDeque<SearchWorkspace> freeWorkspaces;
+    private int workspaceCount;
+    private boolean workspaceMade; // During the current tick.
+    private final ArrayDeque<Request> waiting;
+    private final ArrayList<Request> active;
+    private int nextTurn; // Index into active of the search whose turn it is.
+    private int sliceSize;
+    private double heuristicWeight = 1;
+    private SearchListener listener;
+
+    public SearchScheduler(SearchGrid grid, Heuristic heuristic, Connectivity connectivity) {
+        this(grid, heuristic, connectivity, new ConnectivityIndex(grid, connectivity), DEFAULT_MAX_ACTIVE_SEARCHES);
+    }
+
+    public SearchScheduler(SearchGrid grid, Heuristic heuristic, Connectivity connectivity,
+                           ConnectivityIndex connectivityIndex, int maxActiveSearches) {
+        if (connectivityIndex.getGrid() != grid || connectivityIndex.getConnectivity() != connectivity)
+            throw new IllegalArgumentException("Connectivity index was built for another grid or connectivity");
+        if (maxActiveSearches < 1)
+            throw new IllegalArgumentException("At least one search has to be able to run");
+
+        this.grid = grid;
+        this.heuristic = heuristic;
+        this.connectivity = connectivity;
+        this.connectivityIndex = connectivityIndex;
+        this.maxActiveSearches = maxActiveSearches;
+        freeWorkspaces = new ArrayDeque<>();
+        waiting = new ArrayDeque<>();
+        active = new ArrayList<>();
+        sliceSize = DEFAULT_SLICE_SIZE;
+    }
+
+    public Request submit(Pair startPos, Pair endPos) {
+        if (!grid.isInside(startPos.getX(), startPos.getY()) || !grid.isInside(endPos.getX(), endPos.getY()))
+            throw new IllegalArgumentException("Start or end position is outside the grid");
+
+        Request request = new Request(startPos, endPos);
+        if (connectivityIndex.isConnected(startPos, endPos))
+            waiting.add(request);
+        else
+            request.path = new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, 0);
+        return request;
+    }
+
+    // Moves the searches on until maxNodes nodes are expanded or budgetNanos have passed, zero means no limit for
+    // either. With both zero every query is finished. Returns the number of queries finished during the tick.
+    public int tick(int maxNodes, long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int nodesLeft = maxNodes == 0 ? Integer.MAX_VALUE : maxNodes;
+        int finishedCount = 0;
+        workspaceMade = false;
+        startWaiting();
+        while (!active.isEmpty() && nodesLeft > 0) {
+            if (budgetNanos != 0 && System.nanoTime() - deadline >= 0)
+                break;
+
+            if (nextTurn >= active.size())
+                nextTurn = 0;
+            Request request = active.get(nextTurn);
+            AStar aStar = request.aStar;
+            int expandedBefore = aStar.getExpandedCount();
+            int slice = Math.min(sliceSize, nodesLeft);
+            if (budgetNanos != 0)
+                aStar.iterate(slice, deadline);
+            else
+                aStar.iterate(slice);
+            // Giving up expands nothing, it still counts so a tick always ends.
+            nodesLeft -= Math.max(1, aStar.getExpandedCount() - expandedBefore);
+
+            if (aStar.getState() == AStar.State.SEARCHING) {
+                nextTurn++;
+                continue;
+            }
+
+            // The next search moves into this index, so it's next in turn.
+            request.path = aStar.getPath();
+            active.remove(nextTurn);
+            release(request);
+            finishedCount++;
+            startWaiting();
+        }
+        return finishedCount;
+    }
+
+    private void startWaiting() {
+        while (active.size() < maxActiveSearches && !waiting.isEmpty()) {
+            if (freeWorkspaces.isEmpty()) {
+                if (workspaceMade)
+                    return;
+
+                freeWorkspaces.add(new SearchWorkspace(grid.getSize()));
+                workspaceCount++;
+                workspaceMade = true;
+            }
+            Request request = waiting.poll();
+            request.workspace = freeWorkspaces.poll();
+            request.aStar = new AStar(request.startPos, request.endPos, grid, heuristic, connectivity,
+                    request.workspace);
+            request.aStar.setListener(listener);
+            request.aStar.setHeuristicWeight(heuristicWeight);
+            active.add(request);
+        }
+    }
+
+    // Done with the search, the workspace goes back for the next one.
+    private void release(Request request) {
+        request.expandedCount = request.aStar.getExpandedCount();
+        request.aStar = null;
+        freeWorkspaces.add(request.workspace);
+        request.workspace = null;
+    }
+
+    // Nodes a search expands per turn, before the next search gets one.
+    public void setSliceSize(int sliceSize) {
+        if (sliceSize < 1)
+            throw new IllegalArgumentException("Slice size must be at least 1");
+
+        this.sliceSize = sliceSize;
+    }
+
+    // Weighted A* for the queries started from now on, see AStar.setHeuristicWeight().
+    public void setHeuristicWeight(double heuristicWeight) {
+        if (!(heuristicWeight >= 1))
+            throw new IllegalArgumentException("Heuristic weight must be at least 1");
+
+        this.heuristicWeight = heuristicWeight;
+    }
+
+    // Told about every query that is searched, when its search ends.
+    public void setListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    public int getWaitingCount() {
+        return waiting.size();
+    }
+
+    // Workspaces made so far, at most the maximum number of active searches.
+    public int getWorkspaceCount() {
+        return workspaceCount;
+    }
+
+    public SearchGrid getGrid() {
+        return grid;
+    }
+}
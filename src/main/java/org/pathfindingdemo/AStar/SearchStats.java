@@ -0,0 +1,62 @@
+package org.pathfindingdemo.AStar;
+
+// What one AStar search did, counted while it ran. A reopened node was closed and then reached again by a cheaper
+// path, which only happens when the heuristic isn't consistent. Heap operations are the adds, polls and decreaseKeys
+// on the open list. The time is the time spent in iterate(), not the time between the first and last call.
+public class SearchStats {
+    private final AStar.State state;
+    private final int expandedCount;
+    private final int reopenedCount;
+    private final int peakOpenCount;
+    private final long heapOperationCount;
+    private final int heuristicCount;
+    private final long searchNanos;
+
+    public SearchStats(AStar.State state, int expandedCount, int reopenedCount, int peakOpenCount,
+                       long heapOperationCount, int heuristicCount, long searchNanos) {
+        this.state = state;
+        this.expandedCount = expandedCount;
+        this.reopenedCount = reopenedCount;
+        this.peakOpenCount = peakOpenCount;
+        this.heapOperationCount = heapOperationCount;
+        this.heuristicCount = heuristicCount;
+        this.searchNanos = searchNanos;
+    }
+
+    public AStar.State getState() {
+        return state;
+    }
+
+    public int getExpandedCount() {
+        return expandedCount;
+    }
+
+    public int getReopenedCount() {
+        return reopenedCount;
+    }
+
+    public int getPeakOpenCount() {
+        return peakOpenCount;
+    }
+
+    public long getHeapOperationCount() {
+        return heapOperationCount;
+    }
+
+    // How many times the heuristic was called, once for every node the search reached and again for every reopened
+    // node.
+    public int getHeuristicCount() {
+        return heuristicCount;
+    }
+
+    public long getSearchNanos() {
+        return searchNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d expanded, %d reopened, %d peak open, %d heap operations, %d heuristic calls, " +
+                "%.3f ms", state, expandedCount, reopenedCount, peakOpenCount, heapOperationCount, heuristicCount,
+                searchNanos / 1e6);
+    }
+}
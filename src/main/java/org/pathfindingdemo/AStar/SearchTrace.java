@@ -0,0 +1,267 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/* #####################
+ * # Class SearchTrace #
+ * #####################
+ * Everything an AStar search did, step by step, together with the map it ran on. A TraceReplay plays it back
+ * without searching again, so a search can be looked at long after the map it ran on has changed. Record one with
+ * AStar.setRecording() or PathFinder.findPathTraced().
+ *
+ * Each iterate() is written as the node it expanded followed by one event per neighbor the expansion changed:
+ *     EXPANDED - the expanded node, as the difference to the node expanded before, zigzag varint
+ *     OPENED   - a neighbor reached for the first time, followed by its h as a float
+ *     REOPENED - a closed neighbor opened again with a lower g
+ *     UPDATED  - an open neighbor that got a lower g
+ * The first byte of an event has the type in bits 0 - 1 and for neighbor events the neighbor number in bits 2 - 4.
+ * The parent of a neighbor event is always the node just expanded, and its g follows from the parent's g and the
+ * map, so neither is stored. Without PATH_FOUND, the last iterate() that finds the open list empty has no events.
+ *
+ * File structure of pftrace files, all ints are 32 bit big endian:
+ * ---------------------------------------------------------------------------------------------------------------
+ * byte | 0 - 3 | 4 - 7   | 8 - 11 | 12 - 15 | 16 - 31        | 32 - 35      | 36 - 39 | 40 - 43    | 44 - 47
+ * data | magic | version | width  | height  | start and end  | connectivity | state   | iterations | events
+ * ---------------------------------------------------------------------------------------------------------------
+ * Then the h of the start as a float, the description in modified UTF-8, and deflated, the map as runs like in
+ * pfrle files followed by the events.
+ */
+public class SearchTrace {
+    public final static int MAGIC = 0x50465452; // "PFTR"
+    public final static int VERSION = 1;
+    private final static int BUFFER_SIZE = 1 << 16;
+
+    final static int EXPANDED = 0;
+    final static int OPENED = 1;
+    final static int REOPENED = 2;
+    final static int UPDATED = 3;
+
+    private final CompactGrid map;
+    private final Pair startPos;
+    private final Pair endPos;
+    private final Connectivity connectivity;
+    private final String description;
+    private final AStar.State state;
+    private final int iterationCount;
+    private final int eventCount;
+    private final float startH;
+    private final byte[] events;
+
+    SearchTrace(CompactGrid map, Pair startPos, Pair endPos, Connectivity connectivity, String description,
+                AStar.State state, int iterationCount, int eventCount, float startH, byte[] events) {
+        this.map = map;
+        this.startPos = startPos;
+        this.endPos = endPos;
+        this.connectivity = connectivity;
+        this.description = description;
+        this.state = state;
+        this.iterationCount = iterationCount;
+        this.eventCount = eventCount;
+        this.startH = startH;
+        this.events = events;
+    }
+
+    // Collects the events of one search while it runs.
+    static class Recorder {
+        private byte[] events = new byte[256];
+        private int size;
+        private int eventCount;
+        private int lastExpanded;
+        private final double startH;
+
+        Recorder(int startNode, double startH) {
+            lastExpanded = startNode;
+            this.startH = startH;
+        }
+
+        private void put(int value) {
+            if (size == events.length)
+                events = Arrays.copyOf(events, size * 2);
+            events[size++] = (byte) value;
+        }
+
+        void expanded(int node) {
+            put(EXPANDED);
+            int delta = node - lastExpanded;
+            int zigzag = (delta << 1) ^ (delta >> 31);
+            while ((zigzag & ~0x7f) != 0) {
+                put(zigzag & 0x7f | 0x80);
+                zigzag >>>= 7;
+            }
+            put(zigzag);
+            lastExpanded = node;
+            eventCount++;
+        }
+
+        void opened(int neighbor, double h) {
+            put(OPENED | neighbor << 2);
+            int bits = Float.floatToIntBits((float) h);
+            put(bits >>> 24);
+            put(bits >>> 16);
+            put(bits >>> 8);
+            put(bits);
+            eventCount++;
+        }
+
+        void reopened(int neighbor) {
+            put(REOPENED | neighbor << 2);
+            eventCount++;
+        }
+
+        void updated(int neighbor) {
+            put(UPDATED | neighbor << 2);
+            eventCount++;
+        }
+
+        SearchTrace toTrace(SearchGrid grid, Pair startPos, Pair endPos, Connectivity connectivity,
+                            String description, AStar.State state, int iterationCount) {
+            CompactGrid map = new CompactGrid(grid.getWidth(), grid.getHeight());
+            for (int y = 0; y < grid.getHeight(); y++) {
+                for (int x = 0; x < grid.getWidth(); x++) {
+                    map.setCell(x, y, grid.getCell(x, y));
+                }
+            }
+            return new SearchTrace(map, startPos, endPos, connectivity, description, state, iterationCount,
+                    eventCount, (float) startH, Arrays.copyOf(events, size));
+        }
+    }
+
+    public static SearchTrace read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+            if (header.readInt() != MAGIC)
+                throw new IOException("Not a pftrace file");
+            int version = header.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported pftrace version " + version);
+
+            int width = header.readInt();
+            int height = header.readInt();
+            Pair startPos = new Pair(header.readInt(), header.readInt());
+            Pair endPos = new Pair(header.readInt(), header.readInt());
+            int connectivity = header.readInt();
+            int state = header.readInt();
+            int iterationCount = header.readInt();
+            int eventCount = header.readInt();
+            float startH = header.readFloat();
+            String description = header.readUTF();
+            if (width <= 0 || height <= 0)
+                throw new IOException("Invalid map size " + width + "x" + height);
+            if (connectivity < 0 || connectivity >= Connectivity.values().length ||
+                    state < 0 || state >= AStar.State.values().length || iterationCount < 0 || eventCount < 0)
+                throw new IOException("Invalid pftrace header");
+
+            Inflater inflater = new Inflater();
+            try {
+                InputStream in = new BufferedInputStream(new InflaterInputStream(header, inflater), BUFFER_SIZE);
+                CompactGrid map = new CompactGrid(width, height);
+                RunLengthMap.readRuns(in, map);
+                byte[] events = readAll(in);
+                return new SearchTrace(map, startPos, endPos, Connectivity.values()[connectivity], description,
+                        AStar.State.values()[state], iterationCount, eventCount, startH, events);
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        int size = 0;
+        int count;
+        while ((count = in.read(bytes, size, bytes.length - size)) != -1) {
+            size += count;
+            if (size == bytes.length)
+                bytes = Arrays.copyOf(bytes, size * 2);
+        }
+        return Arrays.copyOf(bytes, size);
+    }
+
+    public void write(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream fileOut = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            DataOutputStream header = new DataOutputStream(fileOut);
+            header.writeInt(MAGIC);
+            header.writeInt(VERSION);
+            header.writeInt(map.getMapWidth());
+            header.writeInt(map.getMapHeight());
+            header.writeInt(startPos.getX());
+            header.writeInt(startPos.getY());
+            header.writeInt(endPos.getX());
+            header.writeInt(endPos.getY());
+            header.writeInt(connectivity.ordinal());
+            header.writeInt(state.ordinal());
+            header.writeInt(iterationCount);
+            header.writeInt(eventCount);
+            header.writeFloat(startH);
+            header.writeUTF(description);
+            header.flush();
+
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                OutputStream out = new BufferedOutputStream(new DeflaterOutputStream(fileOut, deflater, BUFFER_SIZE),
+                        BUFFER_SIZE);
+                RunLengthMap.writeRuns(out, map);
+                out.write(events);
+                // Closing finishes the deflate stream and flushes everything down to the channel.
+                out.close();
+            } finally {
+                deflater.end();
+            }
+        }
+    }
+
+    public MapData getMapData() {
+        return new MapData(startPos, endPos, map);
+    }
+
+    public Connectivity getConnectivity() {
+        return connectivity;
+    }
+
+    // Free text saved with the trace, like the heuristic used.
+    public String getDescription() {
+        return description;
+    }
+
+    // The state of the search when recording stopped, SEARCHING if it was stopped early.
+    public AStar.State getState() {
+        return state;
+    }
+
+    public int getIterationCount() {
+        return iterationCount;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    float getStartH() {
+        return startH;
+    }
+
+    // The encoded events, shared, don't modify them.
+    byte[] getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,37 @@
+package org.pathfindingdemo.AStar;
+
+// Read access to the state of a search, everything needed to draw it. Implemented by a running AStar and by a
+// TraceReplay of a recorded one. Nodes are SearchGrid indices.
+public interface SearchView {
+    SearchGrid getGrid();
+
+    AStar.State getState();
+
+    SearchStats getStats();
+
+    int getOpenNodeCount();
+
+    // The node the next step will expand, or -1 if there is none.
+    int getNextNode();
+
+    int getEndNode();
+
+    boolean isReached(int node);
+
+    boolean isOpen(int node);
+
+    boolean isClosed(int node);
+
+    // -1 if the node has no parent or hasn't been reached.
+    int getParent(int node);
+
+    double getF(int node);
+
+    // Nodes changed since the last clearChangedNodes(), a node can be listed more than once. Only filled while
+    // changes are tracked.
+    int getChangedNodeCount();
+
+    int getChangedNode(int i);
+
+    void clearChangedNodes();
+}
@@ -0,0 +1,78 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.IndexedMinHeap;
+
+import java.util.Arrays;
+
+/* #########################
+ * # Class SearchWorkspace #
+ * #########################
+ * Per-cell search state that can be reused by one search after another. Instead of clearing the arrays between
+ * searches every cell carries the generation it was last reached in, so a cell with an old stamp counts as
+ * unvisited. Starting a new search is then O(1) plus the size of the previous open list, no matter how big the map is.
+ * A workspace must only be used by one search at a time.
+ *
+ * A cell takes 18 bytes: g, the parent, a 16 bit mark with the generation and the flag, and the open list's slot.
+ * h isn't kept, searches calculate it again when they need it. The generation only has 13 bits, so every 8191
+ * searches the marks are cleared once.
+ */
+public class SearchWorkspace {
+    final static int NO_PARENT = -1;
+    final static byte UNVISITED = 0;
+    final static byte OPEN = 1;
+    final static byte CLOSED = 2;
+    private final static int FLAG_BITS = 3; // Searches can add flags of their own, up to 7.
+    private final static int FLAG_MASK = (1 << FLAG_BITS) - 1;
+    private final static int MAX_GENERATION = (1 << (16 - FLAG_BITS)) - 1;
+
+    // g: the cost of the path from start to this node
+    final double[] g;
+    final int[] parents; // The previous best scoring node.
+    final IndexedMinHeap openNodes; // Keyed by node index, the key is f.
+
+    private final char[] marks; // generation << FLAG_BITS | flag
+    private int generation;
+
+    public SearchWorkspace(int capacity) {
+        g = new double[capacity];
+        parents = new int[capacity];
+        openNodes = new IndexedMinHeap(capacity);
+        marks = new char[capacity];
+        generation = 0;
+    }
+
+    public int getCapacity() {
+        return marks.length;
+    }
+
+    // Forgets the previous search.
+    void begin() {
+        openNodes.clear();
+        if (++generation > MAX_GENERATION) {
+            // Out of generations, old marks could look current again.
+            Arrays.fill(marks, (char) 0);
+            generation = 1;
+        }
+    }
+
+    boolean isReached(int index) {
+        return marks[index] >>> FLAG_BITS == generation;
+    }
+
+    // Marks a node as reached by the current search and sets it up as unvisited.
+    void reach(int index) {
+        marks[index] = (char) (generation << FLAG_BITS);
+        g[index] = 0;
+        parents[index] = NO_PARENT;
+    }
+
+    byte getFlag(int index) {
+        int mark = marks[index];
+        return mark >>> FLAG_BITS == generation ? (byte) (mark & FLAG_MASK) : UNVISITED;
+    }
+
+    // Only for nodes reached by the current search.
+    void setFlag(int index, byte flag) {
+        marks[index] = (char) (generation << FLAG_BITS | flag);
+    }
+}
@@ -0,0 +1,185 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.IndexedMinHeap;
+import org.pathfindingdemo.Helpers.LongIntHashMap;
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+/* ##########################
+ * # Class SparsePathFinder #
+ * ##########################
+ * A* straight on a CellGrid, for maps too big for a SearchGrid and a SearchWorkspace sized to the whole map.
+ * Only the cells the search reaches get a node. Nodes are numbered in the order they are reached and a hash map
+ * finds the node of a cell, so memory grows with the size of the search and not with the size of the map.
+ *
+ * maxNodes caps how many nodes one search may reach, which puts a fixed bound on the heap a query can use. A node
+ * takes up to about 120 bytes counting the spare room of the growing tables, so the default budget needs about
+ * 128 MB. A query that needs more nodes throws an IllegalStateException instead of running out of memory.
+ * Cells are read through CellGrid.getCell() with bounds checks, so this is slower than PathFinder on maps that
+ * fit in memory. Not thread safe, use one instance per thread.
+ */
+public class SparsePathFinder implements PathEngine {
+    public final static int DEFAULT_MAX_NODES = 1 << 20;
+    private final static int INITIAL_NODES = 1 << 10;
+
+    private final CellGrid grid;
+    private final Heuristic heuristic;
+    private final Connectivity connectivity;
+    private final double[] stepCosts;
+    private final int maxNodes;
+    private final LongIntHashMap nodes; // y * width + x -> node
+    private final IndexedMinHeap openNodes; // Keyed by node, the key is f.
+
+    // Indexed by node, grown as the search reaches more cells.
+    private long[] cells;
+    private double[] g;
+    private double[] h;
+    private int[] parents;
+    private int nodeCount;
+
+    private Pair endPos;
+    private int expandedCount;
+
+    public SparsePathFinder(CellGrid grid, Heuristic heuristic) {
+        this(grid, heuristic, Connectivity.EIGHT, DEFAULT_MAX_NODES);
+    }
+
+    public SparsePathFinder(CellGrid grid, Heuristic heuristic, Connectivity connectivity, int maxNodes) {
+        if (maxNodes <= 0)
+            throw new IllegalArgumentException("Node budget must be positive");
+
+        this.grid = grid;
+        this.heuristic = heuristic;
+        this.connectivity = connectivity;
+        this.maxNodes = maxNodes;
+        stepCosts = new double[connectivity.getNeighborCount()];
+        for (int i = 0; i < stepCosts.length; i++) {
+            stepCosts[i] = connectivity.isDiagonal(i) ? AStar.DIAGONAL_COST_FACTOR : 1.;
+        }
+        nodes = new LongIntHashMap(INITIAL_NODES);
+        openNodes = new IndexedMinHeap(maxNodes);
+
+        int capacity = Math.min(INITIAL_NODES, maxNodes);
+        cells = new long[capacity];
+        g = new double[capacity];
+        h = new double[capacity];
+        parents = new int[capacity];
+    }
+
+    private boolean isInside(int x, int y) {
+        return x >= 0 && y >= 0 && x < grid.getMapWidth() && y < grid.getMapHeight();
+    }
+
+    private long cellOf(int x, int y) {
+        return (long) y * grid.getMapWidth() + x;
+    }
+
+    private Pair posOf(int node) {
+        long cell = cells[node];
+        int width = grid.getMapWidth();
+        return new Pair((int) (cell % width), (int) (cell / width));
+    }
+
+    // Gives the cell a node with infinite g, or throws if the node budget is used up.
+    private int reachNode(int x, int y) {
+        if (nodeCount == maxNodes)
+            throw new IllegalStateException("Search needs more than " + maxNodes + " nodes");
+
+        if (nodeCount == cells.length) {
+            int capacity = (int) Math.min((long) cells.length * 2, maxNodes);
+            cells = Arrays.copyOf(cells, capacity);
+            g = Arrays.copyOf(g, capacity);
+            h = Arrays.copyOf(h, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+        }
+
+        int node = nodeCount++;
+        cells[node] = cellOf(x, y);
+        g[node] = Double.POSITIVE_INFINITY;
+        h[node] = heuristic.calculate(x, y, endPos.getX(), endPos.getY());
+        parents[node] = SearchWorkspace.NO_PARENT;
+        nodes.put(cells[node], node);
+        return node;
+    }
+
+    @Override
+    public Path findPath(Pair startPos, Pair endPos) {
+        if (!isInside(startPos.getX(), startPos.getY()) || !isInside(endPos.getX(), endPos.getY()))
+            throw new IllegalArgumentException("Start or end position is outside the grid");
+
+        this.endPos = endPos;
+        expandedCount = 0;
+        nodeCount = 0;
+        nodes.clear();
+        openNodes.clear();
+
+        // Without this an unreachable end would search the whole map, or until the node budget runs out.
+        if (grid.getCell(startPos.getX(), startPos.getY()) == CellType.IMPASSABLE ||
+                grid.getCell(endPos.getX(), endPos.getY()) == CellType.IMPASSABLE)
+            return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, 0);
+
+        int startNode = reachNode(startPos.getX(), startPos.getY());
+        long endCell = cellOf(endPos.getX(), endPos.getY());
+        g[startNode] = 0;
+        openNodes.add(startNode, h[startNode]);
+
+        while (!openNodes.isEmpty()) {
+            int currentNode = openNodes.poll();
+            expandedCount++;
+            if (cells[currentNode] == endCell)
+                return buildPath(currentNode);
+
+            int width = grid.getMapWidth();
+            int currentX = (int) (cells[currentNode] % width);
+            int currentY = (int) (cells[currentNode] / width);
+            for (int i = 0; i < stepCosts.length; i++) {
+                int neighX = currentX + connectivity.getXOffset(i);
+                int neighY = currentY + connectivity.getYOffset(i);
+                if (!isInside(neighX, neighY))
+                    continue;
+
+                double weight = SearchGrid.weightOf(grid.getCell(neighX, neighY));
+                // Blocked space
+                if (weight == 0)
+                    continue;
+
+                double neighG = g[currentNode] + weight * stepCosts[i];
+                int neighNode = nodes.get(cellOf(neighX, neighY));
+                if (neighNode == LongIntHashMap.NO_VALUE)
+                    neighNode = reachNode(neighX, neighY);
+                if (neighG >= g[neighNode])
+                    continue;
+
+                parents[neighNode] = currentNode;
+                g[neighNode] = neighG;
+                // Closed nodes are opened again, the heuristic doesn't have to be consistent.
+                if (openNodes.contains(neighNode))
+                    openNodes.decreaseKey(neighNode, neighG + h[neighNode]);
+                else
+                    openNodes.add(neighNode, neighG + h[neighNode]);
+            }
+        }
+        return new Path(Collections.emptyList(), Double.POSITIVE_INFINITY, expandedCount);
+    }
+
+    private Path buildPath(int endNode) {
+        ArrayList<Pair> path = new ArrayList<>();
+        for (int node = endNode; node != SearchWorkspace.NO_PARENT; node = parents[node]) {
+            path.add(posOf(node));
+        }
+        Collections.reverse(path);
+        return new Path(path, g[endNode], expandedCount);
+    }
+
+    public CellGrid getGrid() {
+        return grid;
+    }
+
+    // Nodes reached by the last query.
+    public int getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,183 @@
+package org.pathfindingdemo.AStar;
+
+import org.pathfindingdemo.Helpers.Pair;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* ##################
+ * # Class TiledMap #
+ * ##################
+ * Reads a pfmap file in square tiles that are loaded from disk the first time one of their cells is asked for.
+ * Loaded tiles are kept in a least recently used cache that never holds more than maxTiles tiles, so the heap used
+ * by the map stays the same however big the file is. Each tile is a CompactGrid, 2 bits per cell.
+ *
+ * Meant for maps too big to copy into a SearchGrid, searched with a SparsePathFinder. A search that wanders over
+ * more tiles than the cache holds keeps loading the same tiles again, so the cache should cover the area around
+ * the path. Not thread safe, the cache is changed by every read.
+ */
+public class TiledMap implements CellGrid, Closeable {
+    public final static int DEFAULT_TILE_SIZE = 256;
+    public final static int DEFAULT_MAX_TILES = 1024; // 16 KB per 256x256 tile, 16 MB of cells in total
+    private final static int CELL_TYPE_COUNT = CellType.values().length;
+    private final static int IMPASSABLE = CellType.IMPASSABLE.ordinal();
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final Pair startPos;
+    private final Pair endPos;
+    private final int tileSize;
+    private final int tileColumns;
+    private final LinkedHashMap<Long, CompactGrid> tiles; // In access order, the eldest is evicted first.
+    private final ByteBuffer rowBuffer;
+
+    // Most cell reads hit the same tile as the one before, these skip the cache lookup for them.
+    private long lastTileKey;
+    private CompactGrid lastTile;
+    private int loadCount;
+
+    private TiledMap(FileChannel channel, int width, int height, Pair startPos, Pair endPos,
+                     int tileSize, int maxTiles) {
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.startPos = startPos;
+        this.endPos = endPos;
+        this.tileSize = tileSize;
+        tileColumns = (width + tileSize - 1) / tileSize;
+        tiles = new LinkedHashMap<Long, CompactGrid>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompactGrid> eldest) {
+                return size() > maxTiles;
+            }
+        };
+        rowBuffer = ByteBuffer.allocate(tileSize / 4 + 2);
+        lastTileKey = -1;
+    }
+
+    public static TiledMap open(File file) throws IOException {
+        return open(file, DEFAULT_TILE_SIZE, DEFAULT_MAX_TILES);
+    }
+
+    public static TiledMap open(File file, int tileSize, int maxTiles) throws IOException {
+        if (tileSize <= 0 || maxTiles <= 0)
+            throw new IllegalArgumentException("Tile size and tile count must be positive");
+
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = MappedMap.readHeader(channel);
+            int width = header.getInt();
+            int height = header.getInt();
+            Pair startPos = new Pair(header.getInt(), header.getInt());
+            Pair endPos = new Pair(header.getInt(), header.getInt());
+            if (width <= 0 || height <= 0 || channel.size() < MappedMap.fileSize(width, height))
+                throw new IOException("Map size doesn't match the file size");
+
+            return new TiledMap(channel, width, height, startPos, endPos, tileSize, maxTiles);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public CellType getCell(int x, int y) {
+        int tileX = x / tileSize;
+        int tileY = y / tileSize;
+        long tileKey = (long) tileY * tileColumns + tileX;
+        if (tileKey != lastTileKey) {
+            CompactGrid tile = tiles.get(tileKey);
+            if (tile == null) {
+                tile = loadTile(tileX, tileY);
+                tiles.put(tileKey, tile);
+            }
+            lastTileKey = tileKey;
+            lastTile = tile;
+        }
+        return lastTile.getCell(x - tileX * tileSize, y - tileY * tileSize);
+    }
+
+    // Reads the tile one row at a time, each row is a short run of bytes in the file.
+    private CompactGrid loadTile(int tileX, int tileY) {
+        int originX = tileX * tileSize;
+        int originY = tileY * tileSize;
+        int tileWidth = Math.min(tileSize, width - originX);
+        int tileHeight = Math.min(tileSize, height - originY);
+        CompactGrid tile = new CompactGrid(tileWidth, tileHeight);
+
+        try {
+            for (int y = 0; y < tileHeight; y++) {
+                long firstCell = (long) (originY + y) * width + originX;
+                long firstByte = firstCell >>> 2;
+                long position = MappedMap.HEADER_SIZE + firstByte;
+                rowBuffer.clear();
+                rowBuffer.limit((int) (((firstCell + tileWidth + 3) >>> 2) - firstByte));
+                while (rowBuffer.hasRemaining()) {
+                    if (channel.read(rowBuffer, position + rowBuffer.position()) < 0)
+                        throw new EOFException("Map file ended in the middle of a tile");
+                }
+
+                for (int x = 0; x < tileWidth; x++) {
+                    long cell = firstCell + x;
+                    int packed = rowBuffer.get((int) ((cell >>> 2) - firstByte));
+                    int ordinal = (packed >>> (2 * (int) (cell & 3))) & 3;
+                    // 3 isn't a cell type, read it as a wall like MappedMap does.
+                    tile.setOrdinal((long) y * tileWidth + x, ordinal < CELL_TYPE_COUNT ? ordinal : IMPASSABLE);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        loadCount++;
+        return tile;
+    }
+
+    @Override
+    public void close() throws IOException {
+        tiles.clear();
+        lastTile = null;
+        lastTileKey = -1;
+        channel.close();
+    }
+
+    @Override
+    public int getMapWidth() {
+        return width;
+    }
+
+    @Override
+    public int getMapHeight() {
+        return height;
+    }
+
+    public Pair getStartPos() {
+        return startPos;
+    }
+
+    public Pair getEndPos() {
+        return endPos;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    // Tiles in the cache right now.
+    public int getCachedTileCount() {
+        return tiles.size();
+    }
+
+    // Tiles read from disk since the map was opened, including tiles read again after being evicted.
+    public int getLoadCount() {
+        return loadCount;
+    }
+}
@@ -0,0 +1,344 @@
+package org.pathfindingdemo.AStar;
+
+import java.util.Arrays;
+
+import static org.pathfindingdemo.AStar.SearchTrace.EXPANDED;
+import static org.pathfindingdemo.AStar.SearchTrace.OPENED;
+import static org.pathfindingdemo.AStar.SearchTrace.REOPENED;
+import static org.pathfindingdemo.AStar.SearchTrace.UPDATED;
+import static org.pathfindingdemo.AStar.SearchWorkspace.CLOSED;
+import static org.pathfindingdemo.AStar.SearchWorkspace.NO_PARENT;
+import static org.pathfindingdemo.AStar.SearchWorkspace.OPEN;
+import static org.pathfindingdemo.AStar.SearchWorkspace.UNVISITED;
+
+/* #####################
+ * # Class TraceReplay #
+ * #####################
+ * Plays a SearchTrace back and shows it like the AStar that recorded it would have looked after the same number of
+ * iterate() calls. The events are decoded once up front. Seeking applies them forwards, or undoes them backwards
+ * from the current position, so scrubbing costs as many steps as it moves and nothing is searched again.
+ *
+ * g is worked out from the map exactly like AStar does. h was saved as a float, so F values can be off in the last
+ * digits. The time in the stats is always 0, the trace doesn't know how long the search took.
+ */
+public class TraceReplay implements SearchView {
+    private final SearchTrace trace;
+    private final SearchGrid grid;
+    private final double[] stepCosts;
+    private final int startNode;
+    private final int endNode;
+
+    // Decoded events. Neighbor events have the node just expanded as parent.
+    private final byte[] types;
+    private final byte[] neighbors;
+    private final int[] nodes;
+    private final int[] eventParents;
+    private final float[] hValues;
+    private final int[] iterationStarts; // iteration -> its first event, iteration count + 1 entries
+    private final int[] peakOpenCounts;  // position -> peak open count
+
+    // What an event overwrote, to undo it.
+    private final int[] oldParents;
+    private final double[] oldG;
+
+    private final byte[] flags;
+    private final int[] parents;
+    private final double[] g;
+    private final double[] h;
+    private int position;
+    private int openCount;
+    private int expandedCount;
+    private int openedCount;
+    private int reopenedCount;
+    private int updatedCount;
+
+    private int[] changedNodes;
+    private int changedNodeCount;
+
+    public TraceReplay(SearchTrace trace) {
+        this.trace = trace;
+        grid = new SearchGrid(trace.getMapData().getGrid());
+        int[] offsets = grid.getOffsets(trace.getConnectivity());
+        stepCosts = grid.getStepCosts(trace.getConnectivity());
+        startNode = nodeOf(trace.getMapData().getStartPos().getX(), trace.getMapData().getStartPos().getY());
+        endNode = nodeOf(trace.getMapData().getEndPos().getX(), trace.getMapData().getEndPos().getY());
+
+        int eventCount = trace.getEventCount();
+        types = new byte[eventCount];
+        neighbors = new byte[eventCount];
+        nodes = new int[eventCount];
+        eventParents = new int[eventCount];
+        hValues = new float[eventCount];
+        iterationStarts = new int[trace.getIterationCount() + 1];
+        peakOpenCounts = new int[trace.getIterationCount() + 1];
+        oldParents = new int[eventCount];
+        oldG = new double[eventCount];
+
+        byte[] bytes = trace.getEvents();
+        int offset = 0;
+        int expanded = startNode;
+        int iteration = 0;
+        for (int event = 0; event < eventCount; event++) {
+            if (offset >= bytes.length)
+                throw new IllegalArgumentException("Trace ended before all events were read");
+
+            int first = bytes[offset++] & 0xff;
+            int type = first & 3;
+            types[event] = (byte) type;
+            if (type == EXPANDED) {
+                int zigzag = 0;
+                for (int shift = 0; ; shift += 7) {
+                    if (offset >= bytes.length || shift > 28)
+                        throw new IllegalArgumentException("Invalid node in trace");
+                    int next = bytes[offset++] & 0xff;
+                    zigzag |= (next & 0x7f) << shift;
+                    if ((next & 0x80) == 0)
+                        break;
+                }
+                expanded += (zigzag >>> 1) ^ -(zigzag & 1);
+                if (expanded < 0 || expanded >= grid.getSize() || !grid.isPassable(expanded))
+                    throw new IllegalArgumentException("Invalid node in trace");
+
+                if (iteration == trace.getIterationCount())
+                    throw new IllegalArgumentException("Trace has more iterations than it says");
+                iterationStarts[iteration++] = event;
+                nodes[event] = expanded;
+                eventParents[event] = NO_PARENT;
+                continue;
+            }
+
+            if (iteration == 0)
+                throw new IllegalArgumentException("Neighbor event before the first expansion");
+            int neighbor = first >>> 2 & 7;
+            if (neighbor >= offsets.length)
+                throw new IllegalArgumentException("Invalid neighbor in trace");
+            neighbors[event] = (byte) neighbor;
+            nodes[event] = expanded + offsets[neighbor];
+            eventParents[event] = expanded;
+            if (!grid.isPassable(nodes[event]))
+                throw new IllegalArgumentException("Invalid node in trace");
+            if (type == OPENED) {
+                if (offset + 4 > bytes.length)
+                    throw new IllegalArgumentException("Trace ended before all events were read");
+                int bits = (bytes[offset] & 0xff) << 24 | (bytes[offset + 1] & 0xff) << 16 |
+                        (bytes[offset + 2] & 0xff) << 8 | (bytes[offset + 3] & 0xff);
+                offset += 4;
+                hValues[event] = Float.intBitsToFloat(bits);
+            }
+        }
+        // Iterations without events, like the one that finds the open list empty.
+        for (int i = iteration; i <= trace.getIterationCount(); i++) {
+            iterationStarts[i] = eventCount;
+        }
+
+        // Like AStar, the peak is taken after all neighbors of an expansion are added.
+        boolean startOpen = grid.isPassable(startNode);
+        int open = startOpen ? 1 : 0;
+        peakOpenCounts[0] = open;
+        for (int i = 0; i < trace.getIterationCount(); i++) {
+            for (int event = iterationStarts[i]; event < iterationStarts[i + 1]; event++) {
+                if (types[event] == EXPANDED)
+                    open--;
+                else if (types[event] != UPDATED)
+                    open++;
+            }
+            peakOpenCounts[i + 1] = Math.max(peakOpenCounts[i], open);
+        }
+
+        flags = new byte[grid.getSize()];
+        parents = new int[grid.getSize()];
+        g = new double[grid.getSize()];
+        h = new double[grid.getSize()];
+        Arrays.fill(parents, NO_PARENT);
+        if (startOpen) {
+            flags[startNode] = OPEN;
+            h[startNode] = trace.getStartH();
+            openCount = 1;
+        }
+    }
+
+    private int nodeOf(int x, int y) {
+        if (!grid.isInside(x, y))
+            throw new IllegalArgumentException("Start or end position is outside the map");
+        return grid.indexOf(x, y);
+    }
+
+    private void nodeChanged(int node) {
+        if (changedNodes == null)
+            return;
+
+        if (changedNodeCount == changedNodes.length)
+            changedNodes = Arrays.copyOf(changedNodes, changedNodeCount * 2);
+        changedNodes[changedNodeCount++] = node;
+    }
+
+    private void apply(int event) {
+        int node = nodes[event];
+        if (types[event] == EXPANDED) {
+            flags[node] = CLOSED;
+            openCount--;
+            expandedCount++;
+            nodeChanged(node);
+            return;
+        }
+
+        oldParents[event] = parents[node];
+        oldG[event] = g[node];
+        int parent = eventParents[event];
+        parents[node] = parent;
+        g[node] = g[parent] + grid.getWeight(node) * stepCosts[neighbors[event]];
+        switch (types[event]) {
+            case OPENED:
+                h[node] = hValues[event];
+                flags[node] = OPEN;
+                openCount++;
+                openedCount++;
+                break;
+            case REOPENED:
+                flags[node] = OPEN;
+                openCount++;
+                reopenedCount++;
+                break;
+            default:
+                updatedCount++;
+        }
+        nodeChanged(node);
+    }
+
+    private void undo(int event) {
+        int node = nodes[event];
+        if (types[event] == EXPANDED) {
+            flags[node] = OPEN;
+            openCount++;
+            expandedCount--;
+            nodeChanged(node);
+            return;
+        }
+
+        parents[node] = oldParents[event];
+        g[node] = oldG[event];
+        switch (types[event]) {
+            case OPENED:
+                flags[node] = UNVISITED;
+                openCount--;
+                openedCount--;
+                break;
+            case REOPENED:
+                flags[node] = CLOSED;
+                openCount--;
+                reopenedCount--;
+                break;
+            default:
+                updatedCount--;
+        }
+        nodeChanged(node);
+    }
+
+    // Shows the search as it was after the given number of iterations, clamped to the length of the trace.
+    public void seek(int position) {
+        position = Math.max(0, Math.min(position, getIterationCount()));
+        int event = iterationStarts[this.position];
+        int target = iterationStarts[position];
+        while (event < target) {
+            apply(event++);
+        }
+        while (event > target) {
+            undo(--event);
+        }
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getIterationCount() {
+        return trace.getIterationCount();
+    }
+
+    public SearchTrace getTrace() {
+        return trace;
+    }
+
+    // Starts or stops recording which nodes change, for drawing only what changed. Off by default.
+    public void setTrackChanges(boolean trackChanges) {
+        changedNodes = trackChanges ? new int[64] : null;
+        changedNodeCount = 0;
+    }
+
+    @Override
+    public SearchGrid getGrid() {
+        return grid;
+    }
+
+    // SEARCHING until the end of the trace.
+    @Override
+    public AStar.State getState() {
+        return position == getIterationCount() ? trace.getState() : AStar.State.SEARCHING;
+    }
+
+    @Override
+    public SearchStats getStats() {
+        boolean startOpen = grid.isPassable(startNode);
+        int heuristicCount = (startOpen ? 1 : 0) + openedCount + reopenedCount;
+        return new SearchStats(getState(), expandedCount, reopenedCount, peakOpenCounts[position],
+                heuristicCount + expandedCount + updatedCount, heuristicCount, 0);
+    }
+
+    @Override
+    public int getOpenNodeCount() {
+        return openCount;
+    }
+
+    // Known from the next expansion in the trace, -1 at the end of it.
+    @Override
+    public int getNextNode() {
+        int event = iterationStarts[position];
+        return event < types.length ? nodes[event] : -1;
+    }
+
+    @Override
+    public int getEndNode() {
+        return endNode;
+    }
+
+    @Override
+    public boolean isReached(int node) {
+        return flags[node] != UNVISITED;
+    }
+
+    @Override
+    public boolean isOpen(int node) {
+        return flags[node] == OPEN;
+    }
+
+    @Override
+    public boolean isClosed(int node) {
+        return flags[node] == CLOSED;
+    }
+
+    @Override
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    @Override
+    public double getF(int node) {
+        return g[node] + h[node];
+    }
+
+    @Override
+    public int getChangedNodeCount() {
+        return changedNodeCount;
+    }
+
+    @Override
+    public int getChangedNode(int i) {
+        return changedNodes[i];
+    }
+
+    @Override
+    public void clearChangedNodes() {
+        changedNodeCount = 0;
+    }
+}
@@ -0,0 +1,167 @@
+package org.pathfindingdemo.Application;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+import org.pathfindingdemo.AStar.AStar;
+import org.pathfindingdemo.AStar.Path;
+import org.pathfindingdemo.AStar.PathCache;
+import org.pathfindingdemo.AStar.SearchGrid;
+import org.pathfindingdemo.AStar.SearchStats;
+import org.pathfindingdemo.AStar.SearchView;
+
+// Draws the state of an AStar search, running or replayed, kept out of AStar so the search has no JavaFX dependency.
+public class AStarRenderer {
+    private final static int STATS_LINE_COUNT = 8;
+    private final static double STATS_LINE_HEIGHT = 18;
+    public final static double STATS_WIDTH = 240;
+    public final static double STATS_HEIGHT = STATS_LINE_COUNT * STATS_LINE_HEIGHT + 8;
+    public final static double STATS_MARGIN = 8;
+    private final static Font STATS_FONT = new Font(14);
+
+    private static Font fFont; // Made again when the grid side changes.
+
+    private static void fillNode(GraphicsContext g2d, SearchGrid grid, int node, int gridSide) {
+        g2d.fillRect(grid.xOf(node) * gridSide, grid.yOf(node) * gridSide, gridSide, gridSide);
+    }
+
+    private static void strokeToParent(GraphicsContext g2d, SearchView aStar, int node, int gridSide) {
+        SearchGrid grid = aStar.getGrid();
+        int parent = aStar.getParent(node);
+        g2d.strokeLine(grid.xOf(node) * gridSide + gridSide / 2, grid.yOf(node) * gridSide + gridSide / 2,
+                grid.xOf(parent) * gridSide + gridSide / 2, grid.yOf(parent) * gridSide + gridSide / 2);
+    }
+
+    private static void drawFoundPath(GraphicsContext g2d, SearchView aStar, int gridSide) {
+        int currentNode = aStar.getEndNode();
+        g2d.setLineWidth(4.0);
+        g2d.setStroke(Color.RED);
+        while (aStar.getParent(currentNode) != -1) {
+            strokeToParent(g2d, aStar, currentNode, gridSide);
+            currentNode = aStar.getParent(currentNode);
+        }
+        g2d.setLineWidth(1.0);
+    }
+
+    public static void drawNormal(GraphicsContext g2d, SearchView aStar, int gridSide) {
+        SearchGrid grid = aStar.getGrid();
+        for (int node = 0; node < grid.getSize(); node++) {
+            fillNodeState(g2d, aStar, node, gridSide);
+        }
+        if (aStar.getState() == AStar.State.PATH_FOUND) {
+            drawFoundPath(g2d, aStar, gridSide);
+        }
+    }
+
+    // Fills the square of a node the search has reached with the color drawNormal() gives it. Returns false and
+    // draws nothing if the node hasn't been reached.
+    public static boolean fillNodeState(GraphicsContext g2d, SearchView aStar, int node, int gridSide) {
+        if (node == aStar.getNextNode() && aStar.getState() != AStar.State.PATH_FOUND)
+            g2d.setFill(Color.BLUE);
+        else if (aStar.isClosed(node))
+            g2d.setFill(Color.LIGHTGRAY);
+        else if (aStar.isOpen(node))
+            g2d.setFill(Color.GRAY);
+        else
+            return false;
+
+        fillNode(g2d, aStar.getGrid(), node, gridSide);
+        return true;
+    }
+
+    // Font size follows the grid side and the text is squeezed to the cell width, so it never spills into the
+    // next cell and a cell can be redrawn on its own.
+    private static Font getFFont(int gridSide) {
+        double size = Math.min(20, gridSide - 4);
+        if (fFont == null || fFont.getSize() != size)
+            fFont = new Font(size);
+        return fFont;
+    }
+
+    // One decimal like "%.1f", without the cost of String.format.
+    private static String formatF(double f) {
+        long tenths = Math.round(f * 10);
+        return (tenths / 10) + "." + (tenths % 10);
+    }
+
+    public static void drawNodeF(GraphicsContext g2d, SearchView aStar, int node, int gridSide) {
+        if (!aStar.isReached(node))
+            return;
+
+        SearchGrid grid = aStar.getGrid();
+        Font font = getFFont(gridSide);
+        g2d.setFill(Color.BLACK);
+        g2d.setFont(font);
+        g2d.fillText(formatF(aStar.getF(node)), 2 + grid.xOf(node) * gridSide,
+                font.getSize() + grid.yOf(node) * gridSide, gridSide - 3);
+    }
+
+    public static void drawF(GraphicsContext g2d, SearchView aStar, int gridSide) {
+        SearchGrid grid = aStar.getGrid();
+        for (int node = 0; node < grid.getSize(); node++) {
+            drawNodeF(g2d, aStar, node, gridSide);
+        }
+    }
+
+    public static void drawPaths(GraphicsContext g2d, SearchView aStar, int gridSide) {
+        SearchGrid grid = aStar.getGrid();
+        g2d.setLineWidth(2.0);
+        g2d.setStroke(Color.DARKGRAY);
+        for (int node = 0; node < grid.getSize(); node++) {
+            if (aStar.getParent(node) == -1)
+                continue;
+
+            strokeToParent(g2d, aStar, node, gridSide);
+        }
+        g2d.setLineWidth(1.0);
+        if (aStar.getState() == AStar.State.PATH_FOUND) {
+            drawFoundPath(g2d, aStar, gridSide);
+        }
+    }
+
+    // Box with the stats of the search so far in the top right corner, and a line about where they come from below
+    // them.
+    public static void drawStats(GraphicsContext g2d, SearchView aStar, String footer) {
+        SearchStats stats = aStar.getStats();
+        String[] lines = {
+                "State: " + stats.getState(),
+                "Expanded: " + stats.getExpandedCount(),
+                "Reopened: " + stats.getReopenedCount(),
+                "Open: " + aStar.getOpenNodeCount() + " (peak " + stats.getPeakOpenCount() + ")",
+                "Heap operations: " + stats.getHeapOperationCount(),
+                "Heuristic calls: " + stats.getHeuristicCount(),
+                String.format("Search time: %.3f ms", stats.getSearchNanos() / 1e6),
+                footer
+        };
+        drawStatsBox(g2d, lines);
+    }
+
+    // The path from start to end on the map as it is, while the map is being edited.
+    public static void drawPathStats(GraphicsContext g2d, Path path, PathCache pathCache) {
+        String[] lines = {
+                path.isFound() ? String.format("Path cost: %.2f", path.getCost()) : "No path",
+                "Path cells: " + path.getCells().size(),
+                "Expanded: " + path.getExpandedCount(),
+                "Cached paths: " + pathCache.size(),
+                "Cache hits: " + pathCache.getHitCount(),
+                "Cache misses: " + pathCache.getMissCount()
+        };
+        drawStatsBox(g2d, lines);
+    }
+
+    private static void drawStatsBox(GraphicsContext g2d, String[] lines) {
+        double x = g2d.getCanvas().getWidth() - STATS_WIDTH - STATS_MARGIN;
+        double y = STATS_MARGIN;
+        g2d.setFill(Color.color(1, 1, 1, 0.85));
+        g2d.fillRect(x, y, STATS_WIDTH, STATS_HEIGHT);
+        g2d.setStroke(Color.BLACK);
+        g2d.strokeRect(x, y, STATS_WIDTH, STATS_HEIGHT);
+
+        g2d.setFill(Color.BLACK);
+        g2d.setFont(STATS_FONT);
+        for (int i = 0; i < lines.length; i++) {
+            g2d.fillText(lines[i], x + 6, y + (i + 1) * STATS_LINE_HEIGHT);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import javafx.scene.Group;
 import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Slider;
 import javafx.scene.layout.FlowPane;
 
 import java.util.ArrayList;
@@ -46,6 +47,32 @@ public class ControlPane extends FlowPane {
         elements.put(name, choiceBox);
     }
 
+    // Whole numbers from 0 to max, starts out at 0.
+    public void addSlider(String name, int max, ChangeListener<Number> listener) {
+        Slider slider = new Slider(0, max, 0);
+        slider.setBlockIncrement(1);
+        slider.valueProperty().addListener(listener);
+
+        getChildren().add(slider);
+        elements.put(name, slider);
+    }
+
+    public void setSliderMax(String name, int max) {
+        Node element = elements.get(name);
+        if (!(element instanceof Slider))
+            return;
+
+        ((Slider) element).setMax(max);
+    }
+
+    public void setSliderValue(String name, int value) {
+        Node element = elements.get(name);
+        if (!(element instanceof Slider))
+            return;
+
+        ((Slider) element).setValue(value);
+    }
+
     public void enableElement(String name) {
         Node element = elements.get(name);
         if (element == null)
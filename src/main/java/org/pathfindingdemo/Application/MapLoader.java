@@ -3,7 +3,14 @@ package org.pathfindingdemo.Application;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import org.pathfindingdemo.AStar.CellGrid;
 import org.pathfindingdemo.AStar.CellType;
+import org.pathfindingdemo.AStar.CompactGrid;
+import org.pathfindingdemo.AStar.MapData;
+import org.pathfindingdemo.AStar.MappedMap;
+import org.pathfindingdemo.AStar.RunLengthMap;
+import org.pathfindingdemo.AStar.SearchTrace;
+import org.pathfindingdemo.AStar.TraceReplay;
 import org.pathfindingdemo.Helpers.Pair;
 
 import java.io.*;
@@ -17,30 +24,104 @@ import java.io.*;
  * byte | 1           | 2           | 3         | 4         | 5         | 6          | 7 - n
  * data | start pos x | start pos y | end pos x | end pos y | map width | map height | map data
  * --------------------------------------------------------------------------------------------
+ * Larger maps are stored in the pfmap format, see MappedMap, or compressed in the pfrle format, see RunLengthMap.
+ * Recorded searches are stored in the pftrace format, see SearchTrace.
  */
 public class MapLoader {
     private FileChooser fileChooser;
+    private FileChooser traceChooser;
 
     public MapLoader() {
         fileChooser = new FileChooser();
         fileChooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter("map file", "*.demomap")
+                new FileChooser.ExtensionFilter("map file", "*.demomap"),
+                new FileChooser.ExtensionFilter("large map file", "*.pfmap"),
+                new FileChooser.ExtensionFilter("compressed map file", "*.pfrle")
         );
         fileChooser.setInitialDirectory(new File("Demo Maps"));
+
+        traceChooser = new FileChooser();
+        traceChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("search trace file", "*.pftrace"));
     }
 
-    public MapData loadMap(Stage stage) {
-        MapData mapData = null;
-        CellType[][] map = null;
-        int hMapWidth, hMapHeight, hStartPosX, hStartPosY, hEndPosX, hEndPosY;
-        hMapWidth = hMapHeight = hStartPosX = hStartPosY = hEndPosX = hEndPosY = 0;
+    private static boolean isMappedMapFile(File mapFile) {
+        return mapFile.getName().endsWith(".pfmap");
+    }
+
+    private static boolean isRunLengthMapFile(File mapFile) {
+        return mapFile.getName().endsWith(".pfrle");
+    }
 
+    public MapData loadMap(Stage stage) {
         fileChooser.setTitle("Open Map");
         File mapFile = fileChooser.showOpenDialog(stage);
         if (mapFile == null)
             return null;
 
-        try (InputStream in = new FileInputStream(mapFile)) {
+        try {
+            if (isMappedMapFile(mapFile))
+                return MappedMap.open(mapFile).toMapData();
+            if (isRunLengthMapFile(mapFile))
+                return RunLengthMap.read(mapFile);
+            return readDemoMap(mapFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public void saveMap(Stage stage, MapData mapData) {
+        fileChooser.setTitle("Open Map");
+        File mapFile = fileChooser.showSaveDialog(stage);
+        if (mapFile == null)
+            return;
+
+        try {
+            if (isMappedMapFile(mapFile))
+                MappedMap.write(mapFile, mapData);
+            else if (isRunLengthMapFile(mapFile))
+                RunLengthMap.write(mapFile, mapData, true);
+            else
+                writeDemoMap(mapFile, mapData);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Decoded and ready to play, null if the file couldn't be read or isn't a valid trace.
+    public TraceReplay loadTrace(Stage stage) {
+        traceChooser.setTitle("Open Trace");
+        File traceFile = traceChooser.showOpenDialog(stage);
+        if (traceFile == null)
+            return null;
+
+        try {
+            return new TraceReplay(SearchTrace.read(traceFile));
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public void saveTrace(Stage stage, SearchTrace trace) {
+        traceChooser.setTitle("Save Trace");
+        File traceFile = traceChooser.showSaveDialog(stage);
+        if (traceFile == null)
+            return;
+
+        try {
+            trace.write(traceFile);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static MapData readDemoMap(File mapFile) throws IOException {
+        CompactGrid map = null;
+        int hMapWidth, hMapHeight, hStartPosX, hStartPosY, hEndPosX, hEndPosY;
+        hMapWidth = hMapHeight = hStartPosX = hStartPosY = hEndPosX = hEndPosY = 0;
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(mapFile))) {
             hMapWidth = in.read();
             hMapHeight = in.read();
             hStartPosX = in.read();
@@ -52,34 +133,29 @@ public class MapLoader {
             int x, y;
             x = y = 0;
 
-            map = new CellType[hMapWidth][hMapHeight];
+            map = new CompactGrid(hMapWidth, hMapHeight);
             while ((cellType = in.read()) != -1) {
-                map[x][y++] = CellType.values()[cellType]; // Expensive but we can afford it.
+                map.setCell(x, y++, CellType.values()[cellType]); // Expensive but we can afford it.
                 if (y >= hMapHeight) {
                     y = 0;
                     x++;
                 }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
 
         return new MapData(
                 new Pair(hStartPosX, hStartPosY),
                 new Pair(hEndPosX, hEndPosY),
-                hMapWidth,
-                hMapHeight,
                 map
         );
     }
 
-    public void saveMap(Stage stage, MapData mapData) {
-        fileChooser.setTitle("Open Map");
-        File mapFile = fileChooser.showSaveDialog(stage);
-        if (mapFile == null)
-            return;
+    // Every header value is a single byte, so demomap files can't hold maps bigger than 255x255.
+    public static void writeDemoMap(File mapFile, MapData mapData) throws IOException {
+        if (mapData.getMapWidth() > 255 || mapData.getMapHeight() > 255)
+            throw new IOException("Map is too big for a demomap file, save it as a pfmap file");
 
-        try (OutputStream out = new FileOutputStream(mapFile)) {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(mapFile))) {
             out.write(mapData.getMapWidth());
             out.write(mapData.getMapHeight());
             out.write(mapData.getStartPos().getX());
@@ -87,13 +163,12 @@ public class MapLoader {
             out.write(mapData.getEndPos().getX());
             out.write(mapData.getEndPos().getY());
 
+            CellGrid map = mapData.getGrid();
             for (int x = 0; x < mapData.getMapWidth(); x++) {
                 for (int y = 0; y < mapData.getMapHeight(); y++) {
-                    out.write(mapData.getMap()[x][y].ordinal());
+                    out.write(map.getCell(x, y).ordinal());
                 }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
     }
 }
@@ -5,6 +5,12 @@ import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
+import javax.management.JMException;
+
+import org.pathfindingdemo.AStar.MapData;
+import org.pathfindingdemo.AStar.SearchTrace;
+import org.pathfindingdemo.AStar.TraceReplay;
+
 public class PathFindingApp extends Application {
     enum SimState {
         BUILDING,
@@ -49,6 +55,13 @@ public class PathFindingApp extends Application {
         // Setup the simulation area.
         simArea = new SimArea(0, 0, SIM_AREA_WIDTH, SIM_AREA_HEIGHT, gridSideSetting);
 
+        // Search stats for JConsole and other JMX clients.
+        try {
+            simArea.getSearchMetrics().register("SimArea");
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+
         // Setup the control panel.
         controlPane = new ControlPane(0, SIM_AREA_HEIGHT, CONTROL_PANE_WIDTH, CONTROL_PANE_HEIGHT);
         controlPane.addButton("New grid", (event) -> {
@@ -70,28 +83,46 @@ public class PathFindingApp extends Application {
             if (mapData == null)
                 return;
 
-            // Check if grid size is valid
-            int cellWidth = SIM_AREA_WIDTH / mapData.getMapWidth();
-            int cellHeight = SIM_AREA_HEIGHT / mapData.getMapHeight();
+            int gridSide = getGridSide(mapData);
+            if (gridSide == 0)
+                return;
+
+            simArea.setGridSide(gridSide);
+            simArea.setMap(mapData);
+        });
+
+        controlPane.addButton("Save trace", (event) -> {
+            SearchTrace trace = simArea.getTrace();
+            if (trace != null)
+                mapLoader.saveTrace(stage, trace);
+        });
 
-            // Is the rectangle a square?
-            if (cellWidth != cellHeight)
+        controlPane.addButton("Load trace", (event) -> {
+            setState(SimState.BUILDING);
+            simArea.reset();
+
+            TraceReplay replay = mapLoader.loadTrace(stage);
+            if (replay == null)
                 return;
 
-            // Does it match the predefined sizes?
-            switch (cellWidth) {
-                case SMALL_GRID_SIDE:
-                case MEDIUM_GRID_SIDE:
-                case LARGE_GRID_SIDE:
-                    break;
-                default:
-                    return;
-            }
+            int gridSide = getGridSide(replay.getTrace().getMapData());
+            if (gridSide == 0)
+                return;
 
-            simArea.setGridSide(cellWidth);
-            simArea.setMap(mapData);
+            setState(SimState.SIMULATING);
+            simArea.setGridSide(gridSide);
+            simArea.replayTrace(replay);
+            controlPane.setSliderMax("Trace", replay.getIterationCount());
+            controlPane.enableElement("Trace");
         });
 
+        // Scrubs through a loaded trace.
+        controlPane.addSlider("Trace", 0, (obsValue, oldVal, newVal) -> {
+            simArea.seekReplay((int) Math.round(newVal.doubleValue()));
+        });
+        controlPane.disableElement("Trace");
+        simArea.setReplayListener((position) -> controlPane.setSliderValue("Trace", position));
+
         String[] gridSizes = {"Small size", "Medium size", "Large size"};
         controlPane.addChoiceBox("Grid size", gridSizes, (obsValue, oldVal, newVal) -> {
             gridSideSetting = LARGE_GRID_SIDE;
@@ -125,6 +156,8 @@ public class PathFindingApp extends Application {
 
         controlPane.addChoiceBox("Tools", simArea.getDrawToolNames(), (obsValue, oldVal, newVal) -> simArea.setDrawTool(newVal));
         controlPane.addChoiceBox("Heuristics", simArea.getHeuristicNames(), (obsValue, oldVal, newVal) -> simArea.setHeuristic(newVal));
+        controlPane.addChoiceBox("Connectivity", simArea.getConnectivityNames(), (obsValue, oldVal, newVal) -> simArea.setConnectivity(newVal));
+        controlPane.addChoiceBox("Speed", simArea.getSpeedNames(), (obsValue, oldVal, newVal) -> simArea.setSpeed(newVal));
 
         // Add the control panel and the simulation area to the root.
         root.getChildren().addAll(simArea, controlPane);
@@ -133,17 +166,42 @@ public class PathFindingApp extends Application {
         stage.show();
     }
 
+    // The grid side that shows the whole map in the sim area, 0 if no predefined size does.
+    int getGridSide(MapData mapData) {
+        int cellWidth = SIM_AREA_WIDTH / mapData.getMapWidth();
+        int cellHeight = SIM_AREA_HEIGHT / mapData.getMapHeight();
+
+        // Is the rectangle a square?
+        if (cellWidth != cellHeight)
+            return 0;
+
+        // Does it match the predefined sizes?
+        switch (cellWidth) {
+            case SMALL_GRID_SIDE:
+            case MEDIUM_GRID_SIDE:
+            case LARGE_GRID_SIDE:
+                return cellWidth;
+            default:
+                return 0;
+        }
+    }
+
     void setState(SimState state) {
         switch (state) {
             case BUILDING:
+                // Leaving a replay, the next one sets the slider up again.
+                controlPane.disableElement("Trace");
+                controlPane.setSliderMax("Trace", 0);
                 controlPane.enableElement("Tools");
                 controlPane.enableElement("Heuristics");
+                controlPane.enableElement("Connectivity");
                 simArea.enableBuilding(true);
                 break;
 
             case SIMULATING:
                 controlPane.disableElement("Tools");
                 controlPane.disableElement("Heuristics");
+                controlPane.disableElement("Connectivity");
                 simArea.enableBuilding(false);
         }
     }
@@ -0,0 +1,159 @@
+package org.pathfindingdemo.Application;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.pathfindingdemo.AStar.AStar;
+
+/* ######################
+ * # Class SearchRunner #
+ * ######################
+ * Runs an AStar search on a background thread, so the UI thread only draws. The search moves on in frames: every
+ * nextFrame() lets it run for one Budget more, a number of iterations, a time or both. With an unlimited budget it
+ * doesn't wait for frames at all and runs at full speed.
+ *
+ * Iterations run in small chunks while holding the lock. Whoever reads the search, like the code drawing it, takes
+ * the same lock and sees it between two chunks. The lock should be fair so a reader never waits longer than a chunk.
+ */
+public class SearchRunner {
+    private final static int CHUNK_SIZE = 256;
+
+    // Zero means no limit.
+    public static class Budget {
+        public final static Budget UNLIMITED = new Budget(0, 0);
+
+        private final int iterations;
+        private final long nanos;
+
+        private Budget(int iterations, long nanos) {
+            this.iterations = iterations;
+            this.nanos = nanos;
+        }
+
+        public static Budget iterations(int iterations) {
+            return new Budget(iterations, 0);
+        }
+
+        public static Budget millis(long millis) {
+            return new Budget(0, millis * 1000000);
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        boolean isUnlimited() {
+            return iterations == 0 && nanos == 0;
+        }
+    }
+
+    private final AStar aStar;
+    private final ReentrantLock lock;
+    private final Condition frameStarted;
+    private final Thread thread;
+    private Budget budget;
+    private long frame; // Frames started so far.
+    private boolean stopped;
+
+    public SearchRunner(AStar aStar, ReentrantLock lock, Budget budget) {
+        this.aStar = aStar;
+        this.lock = lock;
+        this.budget = budget;
+        frameStarted = lock.newCondition();
+        thread = new Thread(this::run, "SearchRunner");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void nextFrame() {
+        lock.lock();
+        try {
+            frame++;
+            frameStarted.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Takes effect from the next frame on.
+    public void setBudget(Budget budget) {
+        lock.lock();
+        try {
+            this.budget = budget;
+            frameStarted.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns once the thread is done with the search, after that it's safe to reuse its workspace.
+    public void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            frameStarted.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    public boolean isFinished() {
+        return !thread.isAlive();
+    }
+
+    private void run() {
+        long lastFrame = 0;
+        while (true) {
+            Budget frameBudget;
+            lock.lock();
+            try {
+                while (!stopped && frame == lastFrame && !budget.isUnlimited()) {
+                    frameStarted.awaitUninterruptibly();
+                }
+                if (stopped)
+                    return;
+
+                // Frames the thread fell behind on are skipped, not made up for.
+                lastFrame = frame;
+                frameBudget = budget;
+            } finally {
+                lock.unlock();
+            }
+
+            long deadline = System.nanoTime() + frameBudget.getNanos();
+            int iterationsLeft = frameBudget.getIterations() == 0 ? Integer.MAX_VALUE : frameBudget.getIterations();
+            while (iterationsLeft > 0) {
+                int chunk = Math.min(iterationsLeft, CHUNK_SIZE);
+                lock.lock();
+                try {
+                    if (stopped || !aStar.iterate(chunk) || aStar.getState() != AStar.State.SEARCHING)
+                        return;
+                } finally {
+                    lock.unlock();
+                }
+
+                iterationsLeft -= chunk;
+                if (frameBudget.getNanos() != 0 && System.nanoTime() - deadline >= 0)
+                    break;
+            }
+        }
+    }
+}
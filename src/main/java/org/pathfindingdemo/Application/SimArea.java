@@ -7,82 +7,197 @@ import javafx.scene.input.MouseEvent;
 import javafx.scene.paint.Color;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
 
 import org.pathfindingdemo.AStar.AStar;
 import org.pathfindingdemo.AStar.CellType;
+import org.pathfindingdemo.AStar.CompactGrid;
+import org.pathfindingdemo.AStar.Connectivity;
+import org.pathfindingdemo.AStar.CoordinateHeuristic;
 import org.pathfindingdemo.AStar.Heuristic;
+import org.pathfindingdemo.AStar.Heuristics;
+import org.pathfindingdemo.AStar.LandmarkHeuristic;
+import org.pathfindingdemo.AStar.MapData;
+import org.pathfindingdemo.AStar.Path;
+import org.pathfindingdemo.AStar.PathCache;
+import org.pathfindingdemo.AStar.PathFinder;
+import org.pathfindingdemo.AStar.SearchGrid;
+import org.pathfindingdemo.AStar.SearchMetrics;
+import org.pathfindingdemo.AStar.SearchTrace;
+import org.pathfindingdemo.AStar.SearchView;
+import org.pathfindingdemo.AStar.SearchWorkspace;
+import org.pathfindingdemo.AStar.TraceReplay;
 import org.pathfindingdemo.Helpers.Pair;
 
 public class SimArea extends Canvas {
+    private final static int REPLAY_CHUNK_SIZE = 256;
+
     private boolean buildingEnabled;
     private boolean running;
     private String view;
     private int gridSide;
     private int mapWidth;
     private int mapHeight;
-    private CellType[][] map;
+    private CompactGrid map;
     private Pair startPos;
     private Pair endPos;
     private HashMap<String, SimAreaTool> toolTable;
     private HashMap<String, Heuristic> heuristicTable;
+    private HashMap<String, Connectivity> connectivityTable;
     private SimAreaTool selectedTool;
     private Heuristic selectedHeuristic;
-    private AStar aStar;
+    private String selectedHeuristicName; // Saved with traces.
+    private Connectivity selectedConnectivity;
+    private HashMap<String, SearchRunner.Budget> speedTable;
+    private SearchRunner.Budget selectedSpeed;
+    private AStar aStar; // Recorded, so it can be saved as a trace.
+    private TraceReplay replay; // Shown instead of aStar while a loaded trace is played back.
+    private IntConsumer replayListener;
+    private SearchRunner searchRunner; // Runs aStar in the background while running.
+    private ReentrantLock searchLock; // Held by the runner while it iterates, taken to read aStar while it runs.
+    private AStar.State drawnState;
+    private SearchWorkspace workspace; // Kept between searches as long as the map size doesn't grow.
+    private long mapVersion; // Bumped on every edit, tells the path cache and the landmarks they are stale.
+    private PathCache pathCache;
+    private PathFinder pathFinder; // Headless finder for findPath(), rebuilt when the map or settings change.
+    private long pathFinderVersion;
+    private LandmarkHeuristic landmarkHeuristic; // Behind the "Landmarks" heuristic, rebuilt for every map version.
+    private long landmarkVersion;
+    private SearchMetrics searchMetrics; // Stats of every search started here, stepped or headless.
     private AnimationTimer runTimer;
 
+    // Only cells that changed since the last frame are drawn again, the terrain and grid lines come from images.
+    private TerrainLayer terrainLayer;
+    private BitSet dirtyCells; // y * mapWidth + x
+    private boolean redrawAll; // Set when draw() has to draw everything, like after a view or map change.
+    private int lastNextNode;
+
     private void initCells() {
         mapWidth = (int) Math.floor(getWidth() / gridSide);
         mapHeight = (int) Math.floor(getHeight() / gridSide);
-        map = new CellType[mapWidth][mapHeight];
+        map = new CompactGrid(mapWidth, mapHeight); // All cells start out NORMAL.
+
+        startPos = new Pair(0, 0);
+        endPos = new Pair(mapWidth - 1, mapHeight - 1);
+        mapVersion++;
+        initLayers();
+    }
+
+    private void initLayers() {
+        terrainLayer = new TerrainLayer((int) getWidth(), (int) getHeight(), gridSide, map);
+        dirtyCells = new BitSet(mapWidth * mapHeight);
+        redrawAll = true;
+    }
+
+    private void markDirty(int x, int y) {
+        if (x >= 0 && y >= 0 && x < mapWidth && y < mapHeight)
+            dirtyCells.set(y * mapWidth + x);
+    }
+
+    private void markDirty(Pair pos) {
+        markDirty(pos.getX(), pos.getY());
+    }
 
-        for (int x = 0; x < mapWidth; x++) {
-            for (int y = 0; y < mapHeight; y++) {
-                map[x][y] = CellType.NORMAL;
+    // Marks every cell the rectangle touches, in canvas coordinates.
+    private void markDirty(double left, double top, double width, double height) {
+        for (int y = (int) (top / gridSide); y <= (int) ((top + height) / gridSide); y++) {
+            for (int x = (int) (left / gridSide); x <= (int) ((left + width) / gridSide); x++) {
+                markDirty(x, y);
             }
         }
+    }
 
-        startPos = new Pair(0, 0);
-        endPos = new Pair(mapWidth - 1, mapHeight - 1);
+    // The found path and the Paths view draw lines across cells, those can't be drawn again cell by cell.
+    private boolean isDrawingSearchLines() {
+        SearchView search = getShownSearch();
+        return search != null && (view == "Paths" || search.getState() == AStar.State.PATH_FOUND);
+    }
+
+    // The replay while there is one, the search otherwise.
+    private SearchView getShownSearch() {
+        return replay != null ? replay : aStar;
+    }
+
+    // Marks what the iterations since the last frame changed.
+    private void markSearchChanges(SearchView search) {
+        if (search.getState() != drawnState || view == "Paths")
+            redrawAll = true;
+        drawnState = search.getState();
+
+        SearchGrid grid = search.getGrid();
+        for (int i = 0; i < search.getChangedNodeCount(); i++) {
+            int node = search.getChangedNode(i);
+            markDirty(grid.xOf(node), grid.yOf(node));
+        }
+        search.clearChangedNodes();
+
+        // The next node is drawn in its own color.
+        if (lastNextNode != -1)
+            markDirty(grid.xOf(lastNextNode), grid.yOf(lastNextNode));
+        lastNextNode = search.getNextNode();
+        if (lastNextNode != -1)
+            markDirty(grid.xOf(lastNextNode), grid.yOf(lastNextNode));
     }
 
     private void draw() {
+        searchLock.lock();
+        try {
+            drawFrame();
+        } finally {
+            searchLock.unlock();
+        }
+    }
+
+    private void drawFrame() {
         GraphicsContext g2d = getGraphicsContext2D();
+        SearchView search = getShownSearch();
+        if (search != null)
+            markSearchChanges(search);
+
+        // The stats are see-through, what's under them has to be drawn again before they are.
+        markDirty(getWidth() - AStarRenderer.STATS_WIDTH - AStarRenderer.STATS_MARGIN - 1,
+                AStarRenderer.STATS_MARGIN - 1, AStarRenderer.STATS_WIDTH + 2, AStarRenderer.STATS_HEIGHT + 2);
+
+        if (redrawAll) {
+            drawAll(g2d, search);
+        } else {
+            for (int cell = dirtyCells.nextSetBit(0); cell >= 0; cell = dirtyCells.nextSetBit(cell + 1)) {
+                drawCell(g2d, search, cell % mapWidth, cell / mapWidth);
+            }
+        }
+        dirtyCells.clear();
+        redrawAll = false;
+
+        // Stats on top of everything else.
+        if (replay != null)
+            AStarRenderer.drawStats(g2d, replay, "Replay: " + replay.getPosition() + " of " +
+                    replay.getIterationCount());
+        else if (aStar != null)
+            AStarRenderer.drawStats(g2d, aStar, String.format("Searches: %d, avg %.3f ms",
+                    searchMetrics.getSearchCount(), searchMetrics.getAverageSearchMillis()));
+        else
+            AStarRenderer.drawPathStats(g2d, findPath(startPos, endPos), pathCache);
+    }
 
+    private void drawAll(GraphicsContext g2d, SearchView search) {
         // Clear sim area
         g2d.clearRect(0, 0, getWidth(), getHeight());
 
-        // Draw border around simulation area.
-        g2d.setStroke(Color.BLACK);
-        g2d.strokeRect(0, 0, getWidth(), getHeight());
-
         // Draw cells
-        for (int x = 0; x < mapWidth; x++) {
-            for (int y = 0; y < mapHeight; y++) {
-                switch (map[x][y]) {
-                    case IMPASSABLE:
-                        g2d.setFill(Color.BLACK);
-                        g2d.fillRect(x * gridSide, y * gridSide, gridSide, gridSide);
-                        break;
-                    case OBSTACLE:
-                        g2d.setFill(Color.LIGHTBLUE);
-                        g2d.fillRect(x * gridSide, y * gridSide, gridSide, gridSide);
-                        break;
-                    default:
-                        break;
-                }
-            }
-        }
+        g2d.drawImage(terrainLayer.getCellImage(), 0, 0);
 
-        if (aStar != null) {
+        if (search != null) {
             switch (view) {
                 case "Normal":
                 case "Normal show F":
-                    aStar.drawNormal(g2d, gridSide);
+                    AStarRenderer.drawNormal(g2d, search, gridSide);
                     break;
                 case "Paths":
-                    aStar.drawPaths(g2d, gridSide);
+                    AStarRenderer.drawPaths(g2d, search, gridSide);
                     break;
             }
         }
@@ -94,20 +209,40 @@ public class SimArea extends Canvas {
         g2d.setFill(Color.RED);
         g2d.fillRect(endPos.getX() * gridSide, endPos.getY() * gridSide, gridSide, gridSide);
 
-        g2d.setStroke(Color.DARKGRAY);
-        // Draw grid.
-        if (view == "Paths")
-            return;
+        // Draw grid and border.
+        if (view != "Paths") {
+            g2d.drawImage(terrainLayer.getLineImage(), 0, 0);
+            if (view == "Normal show F" && search != null)
+                AStarRenderer.drawF(g2d, search, gridSide);
+        } else {
+            g2d.setStroke(Color.BLACK);
+            g2d.strokeRect(0, 0, getWidth(), getHeight());
+        }
+    }
 
-        for (int x = gridSide; x < getWidth(); x += gridSide) {
-            g2d.strokeLine(x, 0, x, getHeight());
+    // The same layers as drawAll(), for a single cell.
+    private void drawCell(GraphicsContext g2d, SearchView search, int x, int y) {
+        double left = x * gridSide;
+        double top = y * gridSide;
+        g2d.clearRect(left, top, gridSide, gridSide);
+
+        int node = search == null ? -1 : search.getGrid().indexOf(x, y);
+        if (node == -1 || view == "Paths" || !AStarRenderer.fillNodeState(g2d, search, node, gridSide))
+            g2d.drawImage(terrainLayer.getCellImage(), left, top, gridSide, gridSide, left, top, gridSide, gridSide);
+
+        if (startPos.getX() == x && startPos.getY() == y) {
+            g2d.setFill(Color.GREEN);
+            g2d.fillRect(left, top, gridSide, gridSide);
+        } else if (endPos.getX() == x && endPos.getY() == y) {
+            g2d.setFill(Color.RED);
+            g2d.fillRect(left, top, gridSide, gridSide);
         }
-        for (int y = gridSide; y < getHeight(); y += gridSide) {
-            g2d.strokeLine(0, y, getWidth(), y);
+
+        if (view != "Paths") {
+            g2d.drawImage(terrainLayer.getLineImage(), left, top, gridSide, gridSide, left, top, gridSide, gridSide);
+            if (view == "Normal show F" && node != -1)
+                AStarRenderer.drawNodeF(g2d, search, node, gridSide);
         }
-        if (view != "Normal show F" || aStar == null)
-            return;
-        aStar.drawF(g2d, gridSide);
     }
 
     private void useTool(MouseEvent event) {
@@ -120,7 +255,19 @@ public class SimArea extends Canvas {
         mouseX = Math.min(Math.max(mouseX, 0), mapWidth - 1);
         mouseY = Math.min(Math.max(mouseY, 0), mapHeight - 1);
 
+        Pair oldStartPos = startPos;
+        Pair oldEndPos = endPos;
         selectedTool.useTool(mouseX, mouseY);
+        terrainLayer.paintCell(mouseX, mouseY, map.getCell(mouseX, mouseY));
+        markDirty(mouseX, mouseY);
+        markDirty(oldStartPos);
+        markDirty(oldEndPos);
+        markDirty(startPos);
+        markDirty(endPos);
+        if (isDrawingSearchLines())
+            redrawAll = true;
+
+        mapVersion++;
         draw();
     }
 
@@ -132,6 +279,9 @@ public class SimArea extends Canvas {
         buildingEnabled = true;
         running = false;
         view = "Normal";
+        pathCache = new PathCache();
+        searchMetrics = new SearchMetrics();
+        searchLock = new ReentrantLock(true);
         initCells();
 
         // Create tools
@@ -141,7 +291,7 @@ public class SimArea extends Canvas {
                 return;
 
             startPos = new Pair(mouseX, mouseY);
-            map[mouseX][mouseY] = CellType.NORMAL;
+            map.setCell(mouseX, mouseY, CellType.NORMAL);
         });
 
         toolTable.put("Place End", (int mouseX, int mouseY) -> {
@@ -149,7 +299,7 @@ public class SimArea extends Canvas {
                 return;
 
             endPos = new Pair(mouseX, mouseY);
-            map[mouseX][mouseY] = CellType.NORMAL;
+            map.setCell(mouseX, mouseY, CellType.NORMAL);
         });
 
         toolTable.put("Draw Normal Cell", (int mouseX, int mouseY) -> {
@@ -159,7 +309,7 @@ public class SimArea extends Canvas {
             if (endPos.getX() == mouseX && endPos.getY() == mouseY)
                 return;
 
-            map[mouseX][mouseY] = CellType.NORMAL;
+            map.setCell(mouseX, mouseY, CellType.NORMAL);
         });
 
         toolTable.put("Draw Slow Cell", (int mouseX, int mouseY) -> {
@@ -169,7 +319,7 @@ public class SimArea extends Canvas {
             if (endPos.getX() == mouseX && endPos.getY() == mouseY)
                 return;
 
-            map[mouseX][mouseY] = CellType.OBSTACLE;
+            map.setCell(mouseX, mouseY, CellType.OBSTACLE);
         });
 
         toolTable.put("Draw Solid Cell", (int mouseX, int mouseY) -> {
@@ -179,38 +329,43 @@ public class SimArea extends Canvas {
                 if (endPos.getX() == mouseX && endPos.getY() == mouseY)
                     return;
 
-                map[mouseX][mouseY] = CellType.IMPASSABLE;
+                map.setCell(mouseX, mouseY, CellType.IMPASSABLE);
         });
 
         selectedTool = toolTable.get("Draw Normal Cell");
 
         // Create Heuristics
         heuristicTable = new HashMap<>();
-        heuristicTable.put("Dijkstra", (Pair fromPos, Pair endPos) -> {
-            return 0.;
+        heuristicTable.put("Dijkstra", Heuristics.DIJKSTRA);
+        heuristicTable.put("Diagonal distance", Heuristics.DIAGONAL);
+        heuristicTable.put("Euclidean", Heuristics.EUCLIDEAN);
+        heuristicTable.put("Manhattan", Heuristics.MANHATTAN);
+
+        // Needs the map, updateLandmarks() builds it before each search that uses it.
+        heuristicTable.put("Landmarks", (CoordinateHeuristic) (int fromX, int fromY, int endX, int endY) -> {
+            return landmarkHeuristic.calculate(fromX, fromY, endX, endY);
         });
 
-        heuristicTable.put("Diagonal distance", (Pair fromPos, Pair endPos) -> {
-            int dx = Math.abs(fromPos.getX() - endPos.getX());
-            int dy = Math.abs(fromPos.getY() - endPos.getY());
-            return AStar.NORMAL_WEIGHT * (dx + dy) +
-                    (AStar.DIAGONAL_COST_FACTOR * AStar.NORMAL_WEIGHT - 2 * AStar.NORMAL_WEIGHT)
-                    * Math.min(dx, dy);
-        });
+        selectedHeuristicName = "Diagonal distance";
+        selectedHeuristic = heuristicTable.get(selectedHeuristicName);
 
-        heuristicTable.put("Euclidean", (Pair fromPos, Pair endPos) -> {
-            int dx = Math.abs(fromPos.getX() - endPos.getX());
-            int dy = Math.abs(fromPos.getY() - endPos.getY());
-            return AStar.NORMAL_WEIGHT * Math.sqrt(dx * dx + dy * dy);
-        });
+        // Create connectivities
+        connectivityTable = new HashMap<>();
+        connectivityTable.put("8-connected", Connectivity.EIGHT);
+        connectivityTable.put("4-connected", Connectivity.FOUR);
 
-        heuristicTable.put("Manhattan", (Pair fromPos, Pair endPos) -> {
-            int dx = Math.abs(fromPos.getX() - endPos.getX());
-            int dy = Math.abs(fromPos.getY() - endPos.getY());
-            return AStar.NORMAL_WEIGHT * (dx + dy);
-        });
+        selectedConnectivity = connectivityTable.get("8-connected");
 
-        selectedHeuristic = heuristicTable.get("Diagonal distance");
+        // Create speeds, how far the search gets per frame while running.
+        speedTable = new HashMap<>();
+        speedTable.put("1 node per frame", SearchRunner.Budget.iterations(1));
+        speedTable.put("10 nodes per frame", SearchRunner.Budget.iterations(10));
+        speedTable.put("100 nodes per frame", SearchRunner.Budget.iterations(100));
+        speedTable.put("1000 nodes per frame", SearchRunner.Budget.iterations(1000));
+        speedTable.put("4 ms per frame", SearchRunner.Budget.millis(4));
+        speedTable.put("Unlimited", SearchRunner.Budget.UNLIMITED);
+
+        selectedSpeed = speedTable.get("1 node per frame");
 
         setOnMouseClicked((event -> useTool(event)));
         setOnMouseDragged((event -> useTool(event)));
@@ -218,7 +373,17 @@ public class SimArea extends Canvas {
         runTimer = new AnimationTimer() {
             @Override
             public void handle(long now) {
-                iterate();
+                if (replay != null) {
+                    advanceReplay();
+                    if (replay.getPosition() == replay.getIterationCount())
+                        stopRunning();
+                } else if (searchRunner.isFinished()) {
+                    // One more frame to draw the end of the search.
+                    stopRunning();
+                } else {
+                    searchRunner.nextFrame();
+                }
+                draw();
             }
         };
 
@@ -227,6 +392,7 @@ public class SimArea extends Canvas {
 
     public void setView(String view) {
         this.view = view;
+        redrawAll = true;
         draw();
     }
 
@@ -236,31 +402,141 @@ public class SimArea extends Canvas {
         draw();
     }
 
+    private void startSearch() {
+        SearchGrid grid = new SearchGrid(map);
+        updateLandmarks(grid);
+        if (workspace == null || workspace.getCapacity() < grid.getSize())
+            workspace = new SearchWorkspace(grid.getSize());
+
+        // The landmarks are passed on directly, the table entry reads a field the UI thread may replace.
+        Heuristic heuristic = selectedHeuristic == heuristicTable.get("Landmarks") ? landmarkHeuristic
+                : selectedHeuristic;
+        aStar = new AStar(startPos, endPos, grid, heuristic, selectedConnectivity, workspace);
+        aStar.setListener(searchMetrics);
+        aStar.setTrackChanges(true);
+        aStar.setRecording(true);
+        drawnState = null;
+        lastNextNode = -1;
+    }
+
     public void iterate() {
-        if (aStar == null) {
-            aStar = new AStar(startPos, endPos, new Pair(mapWidth, mapHeight), selectedHeuristic, map);
+        if (replay != null) {
+            seekReplay(replay.getPosition() + 1);
+            return;
+        }
+
+        searchLock.lock();
+        try {
+            if (aStar == null)
+                startSearch();
+            aStar.iterate();
+        } finally {
+            searchLock.unlock();
         }
-        aStar.iterate();
         draw();
     }
 
+    // Runs the search on a background thread, this thread only draws it once per frame.
     public void run() {
         if (running) {
-            runTimer.stop();
-            running = false;
+            stopRunning();
+            return;
+        }
+
+        // A replay is cheap enough to play on this thread.
+        if (replay != null) {
+            runTimer.start();
+            running = true;
             return;
         }
+
+        if (aStar == null)
+            startSearch();
+        searchRunner = new SearchRunner(aStar, searchLock, selectedSpeed);
+        searchRunner.start();
         runTimer.start();
         running = true;
     }
 
-    public void reset() {
+    private void stopRunning() {
         runTimer.stop();
         running = false;
+        if (searchRunner != null) {
+            searchRunner.stop();
+            searchRunner = null;
+        }
+    }
+
+    public void reset() {
+        // The next search reuses the workspace, so the runner has to be done with it first.
+        stopRunning();
         aStar = null;
+        replay = null;
+        redrawAll = true;
+        draw();
+    }
+
+    // Shows a recorded search on the map it ran on. Iterate and run play it back like a live search.
+    public void replayTrace(TraceReplay replay) {
+        reset();
+        setMap(replay.getTrace().getMapData());
+        this.replay = replay;
+        replay.setTrackChanges(true);
+        drawnState = null;
+        lastNextNode = -1;
+        redrawAll = true;
+        replayMoved();
+        draw();
+    }
+
+    // Jumps to the replay as it was after that many iterations.
+    public void seekReplay(int position) {
+        if (replay == null || position == replay.getPosition())
+            return;
+
+        replay.seek(position);
+        replayMoved();
         draw();
     }
 
+    // Moves the replay on by one frame of the selected speed.
+    private void advanceReplay() {
+        if (selectedSpeed.isUnlimited()) {
+            replay.seek(replay.getIterationCount());
+        } else if (selectedSpeed.getIterations() != 0) {
+            replay.seek(replay.getPosition() + selectedSpeed.getIterations());
+        } else {
+            long deadline = System.nanoTime() + selectedSpeed.getNanos();
+            while (replay.getPosition() < replay.getIterationCount() && System.nanoTime() - deadline < 0) {
+                replay.seek(replay.getPosition() + REPLAY_CHUNK_SIZE);
+            }
+        }
+        replayMoved();
+    }
+
+    private void replayMoved() {
+        if (replayListener != null)
+            replayListener.accept(replay.getPosition());
+    }
+
+    // Told the position of the replay whenever it moves.
+    public void setReplayListener(IntConsumer replayListener) {
+        this.replayListener = replayListener;
+    }
+
+    // The replayed trace, or the search so far. null if there is neither.
+    public SearchTrace getTrace() {
+        if (replay != null)
+            return replay.getTrace();
+
+        searchLock.lock();
+        try {
+            return aStar == null ? null : aStar.getTrace(selectedHeuristicName);
+        } finally {
+            searchLock.unlock();
+        }
+    }
+
     public void enableBuilding(boolean enable) {
         buildingEnabled = enable;
     }
@@ -274,11 +550,22 @@ public class SimArea extends Canvas {
     }
 
     public void setHeuristic(String heuristic) {
+        selectedHeuristicName = heuristic;
         selectedHeuristic = heuristicTable.get(heuristic);
     }
 
+    public void setConnectivity(String connectivity) {
+        selectedConnectivity = connectivityTable.get(connectivity);
+    }
+
+    public void setSpeed(String speed) {
+        selectedSpeed = speedTable.get(speed);
+        if (searchRunner != null)
+            searchRunner.setBudget(selectedSpeed);
+    }
+
     public final MapData getMap() {
-        return new MapData(startPos, endPos, mapWidth, mapHeight, map);
+        return new MapData(startPos, endPos, map);
     }
 
     public void setMap(final MapData mapData) {
@@ -286,10 +573,47 @@ public class SimArea extends Canvas {
         endPos = mapData.getEndPos();
         mapWidth = mapData.getMapWidth();
         mapHeight = mapData.getMapHeight();
-        map = mapData.getMap();
+        map = CompactGrid.copyOf(mapData.getGrid());
+        mapVersion++;
+        initLayers();
         draw();
     }
 
+    // Headless query on the map as it is now, with the selected heuristic and connectivity. Repeated queries are
+    // answered from the path cache until the map is edited.
+    public Path findPath(Pair fromPos, Pair toPos) {
+        // The finder is only built on a miss.
+        return pathCache.findPath(mapVersion, selectedConnectivity, selectedHeuristic, fromPos, toPos,
+                (Pair queryStartPos, Pair queryEndPos) -> getPathFinder().findPath(queryStartPos, queryEndPos));
+    }
+
+    private PathFinder getPathFinder() {
+        if (pathFinder == null || pathFinderVersion != mapVersion ||
+                pathFinder.getHeuristic() != selectedHeuristic || pathFinder.getConnectivity() != selectedConnectivity) {
+            SearchGrid grid = new SearchGrid(map);
+            updateLandmarks(grid);
+            pathFinder = new PathFinder(grid, selectedHeuristic, selectedConnectivity);
+            pathFinder.setListener(searchMetrics);
+            pathFinderVersion = mapVersion;
+        }
+        return pathFinder;
+    }
+
+    private void updateLandmarks(SearchGrid grid) {
+        if (selectedHeuristic != heuristicTable.get("Landmarks"))
+            return;
+
+        if (landmarkHeuristic == null || landmarkVersion != mapVersion ||
+                landmarkHeuristic.getConnectivity() != selectedConnectivity) {
+            landmarkHeuristic = new LandmarkHeuristic(grid, selectedConnectivity);
+            landmarkVersion = mapVersion;
+        }
+    }
+
+    public SearchMetrics getSearchMetrics() {
+        return searchMetrics;
+    }
+
     public String[] getDrawToolNames() {
         Set<String> toolNameSet = toolTable.keySet();
         String[] toolNameArr = toolNameSet.toArray(new String[toolNameSet.size()]);
@@ -303,4 +627,15 @@ public class SimArea extends Canvas {
         Arrays.sort(heuristicNameArr);
         return heuristicNameArr;
     }
-}
\ No newline at end of file
+
+    // Not sorted, the first name is the default connectivity.
+    public String[] getConnectivityNames() {
+        return new String[] {"8-connected", "4-connected"};
+    }
+
+    // Slowest first, the first name is the default speed.
+    public String[] getSpeedNames() {
+        return new String[] {"1 node per frame", "10 nodes per frame", "100 nodes per frame", "1000 nodes per frame",
+                "4 ms per frame", "Unlimited"};
+    }
+}
@@ -0,0 +1,106 @@
+package org.pathfindingdemo.Application;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.util.Arrays;
+
+import org.pathfindingdemo.AStar.CellGrid;
+import org.pathfindingdemo.AStar.CellType;
+
+/* ######################
+ * # Class TerrainLayer #
+ * ######################
+ * Cached images of the parts of the sim area that only change when the map is edited or replaced: one with the
+ * cell colors and one with the grid lines and the border. A full redraw is then two drawImage calls instead of a
+ * fillRect per cell and a strokeLine per line, and a single cell is redrawn by copying its square out of the images.
+ * An edited cell is written into the cell image pixel by pixel.
+ *
+ * Grid lines are one pixel wide and lie on the left column and top row of a cell, so everything drawn for a cell
+ * stays inside its square and a cell can be redrawn without touching its neighbors.
+ */
+public class TerrainLayer {
+    private final static int CLEAR = 0x00000000;
+    private final static int BLACK = 0xff000000;
+    private final static int LIGHT_BLUE = 0xffadd8e6;
+    private final static int DARK_GRAY = 0xffa9a9a9;
+
+    private final int width;
+    private final int height;
+    private final int gridSide;
+    private final WritableImage cellImage;
+    private final WritableImage lineImage;
+    private final int[] cellPixels; // One cell, reused by paintCell().
+
+    public TerrainLayer(int width, int height, int gridSide, CellGrid map) {
+        this.width = width;
+        this.height = height;
+        this.gridSide = gridSide;
+        cellImage = new WritableImage(width, height);
+        lineImage = new WritableImage(width, height);
+        cellPixels = new int[gridSide * gridSide];
+        paintLines();
+        paintCells(map);
+    }
+
+    private static int colorOf(CellType cellType) {
+        switch (cellType) {
+            case IMPASSABLE:
+                return BLACK;
+            case OBSTACLE:
+                return LIGHT_BLUE;
+            default:
+                return CLEAR;
+        }
+    }
+
+    private void paintLines() {
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x == 0 || y == 0 || x == width - 1 || y == height - 1)
+                    pixels[y * width + x] = BLACK;
+                else if (x % gridSide == 0 || y % gridSide == 0)
+                    pixels[y * width + x] = DARK_GRAY;
+            }
+        }
+        lineImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+    }
+
+    private void paintCells(CellGrid map) {
+        int[] pixels = new int[width * height];
+        int mapWidth = Math.min(map.getMapWidth(), width / gridSide);
+        int mapHeight = Math.min(map.getMapHeight(), height / gridSide);
+        for (int y = 0; y < mapHeight; y++) {
+            for (int x = 0; x < mapWidth; x++) {
+                int color = colorOf(map.getCell(x, y));
+                if (color == CLEAR)
+                    continue;
+
+                for (int row = y * gridSide; row < (y + 1) * gridSide; row++) {
+                    Arrays.fill(pixels, row * width + x * gridSide, row * width + (x + 1) * gridSide, color);
+                }
+            }
+        }
+        cellImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), pixels, 0, width);
+    }
+
+    public void paintCell(int x, int y, CellType cellType) {
+        Arrays.fill(cellPixels, colorOf(cellType));
+        cellImage.getPixelWriter().setPixels(x * gridSide, y * gridSide, gridSide, gridSide,
+                PixelFormat.getIntArgbInstance(), cellPixels, 0, gridSide);
+    }
+
+    public Image getCellImage() {
+        return cellImage;
+    }
+
+    public Image getLineImage() {
+        return lineImage;
+    }
+
+    public int getGridSide() {
+        return gridSide;
+    }
+}
@@ -0,0 +1,168 @@
+package org.pathfindingdemo.Helpers;
+
+import java.util.Arrays;
+
+/* ########################
+ * # Class IndexedMinHeap #
+ * ########################
+ * Binary min-heap over integer indices in the range [0, capacity). Every index can be in the heap at most once,
+ * and a position table maps each index to its slot in the heap. That makes contains() O(1) and lets
+ * decreaseKey() sift the entry in place in O(log n) instead of the remove + add a PriorityQueue needs.
+ */
+public class IndexedMinHeap {
+    private static final int ABSENT = -1;
+
+    private int[] heap;      // heap slot -> index
+    private double[] keys;   // heap slot -> key, moved together with the heap entry
+    private int[] positions; // index -> heap slot, ABSENT if the index is not in the heap
+    private int size;
+
+    public IndexedMinHeap(int capacity) {
+        heap = new int[16];
+        keys = new double[16];
+        positions = new int[capacity];
+        Arrays.fill(positions, ABSENT);
+        size = 0;
+    }
+
+    public boolean contains(int index) {
+        return positions[index] != ABSENT;
+    }
+
+    public void add(int index, double key) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        heap[size] = index;
+        keys[size] = key;
+        positions[index] = size;
+        siftUp(size++);
+    }
+
+    // Only lowers the key, a larger key is ignored.
+    public void decreaseKey(int index, double key) {
+        int slot = positions[index];
+        if (key >= keys[slot])
+            return;
+
+        keys[slot] = key;
+        siftUp(slot);
+    }
+
+    // Moves the entry up or down to match the new key.
+    public void update(int index, double key) {
+        int slot = positions[index];
+        double oldKey = keys[slot];
+        keys[slot] = key;
+        if (key < oldKey)
+            siftUp(slot);
+        else
+            siftDown(slot);
+    }
+
+    public void remove(int index) {
+        int slot = positions[index];
+        positions[index] = ABSENT;
+        if (slot == --size)
+            return;
+
+        // Fill the hole with the last entry, it may have to go either way.
+        double oldKey = keys[slot];
+        heap[slot] = heap[size];
+        keys[slot] = keys[size];
+        positions[heap[slot]] = slot;
+        if (keys[slot] < oldKey)
+            siftUp(slot);
+        else
+            siftDown(slot);
+    }
+
+    public int peek() {
+        return heap[0];
+    }
+
+    public double peekKey() {
+        return keys[0];
+    }
+
+    public int poll() {
+        int top = heap[0];
+        positions[top] = ABSENT;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            keys[0] = keys[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public double getKey(int index) {
+        return keys[positions[index]];
+    }
+
+    // Index stored in the given heap slot, used to walk the heap in no particular order.
+    public int get(int slot) {
+        return heap[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Runs in O(size), not O(capacity).
+    public void clear() {
+        for (int slot = 0; slot < size; slot++) {
+            positions[heap[slot]] = ABSENT;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int slot) {
+        int index = heap[slot];
+        double key = keys[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (keys[parent] <= key)
+                break;
+
+            move(parent, slot);
+            slot = parent;
+        }
+        place(index, key, slot);
+    }
+
+    private void siftDown(int slot) {
+        int index = heap[slot];
+        double key = keys[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child])
+                child++;
+            if (key <= keys[child])
+                break;
+
+            move(child, slot);
+            slot = child;
+        }
+        place(index, key, slot);
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        positions[heap[to]] = to;
+    }
+
+    private void place(int index, double key, int slot) {
+        heap[slot] = index;
+        keys[slot] = key;
+        positions[index] = slot;
+    }
+}
@@ -0,0 +1,89 @@
+package org.pathfindingdemo.Helpers;
+
+import java.util.Arrays;
+
+/* ########################
+ * # Class LongIntHashMap #
+ * ########################
+ * Open addressing hash map from long keys to non-negative int values, with linear probing. Keys and values are
+ * kept in plain arrays so nothing is boxed, which matters when the map holds millions of search nodes. The table
+ * doubles when it gets half full.
+ */
+public class LongIntHashMap {
+    public final static int NO_VALUE = -1;
+
+    private long[] keys;
+    private int[] values; // NO_VALUE marks an empty slot.
+    private int mask;
+    private int size;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NO_VALUE);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private int slotOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    // NO_VALUE if the key isn't in the map.
+    public int get(long key) {
+        for (int slot = slotOf(key); values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key)
+                return values[slot];
+        }
+        return NO_VALUE;
+    }
+
+    public void put(long key, int value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Values can't be negative");
+
+        int slot = slotOf(key);
+        for (; values[slot] != NO_VALUE; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length)
+            grow();
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, NO_VALUE);
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == NO_VALUE)
+                continue;
+
+            int slot = slotOf(oldKeys[i]);
+            while (values[slot] != NO_VALUE) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // O(capacity), the table keeps the size it has grown to.
+    public void clear() {
+        Arrays.fill(values, NO_VALUE);
+        size = 0;
+    }
+}
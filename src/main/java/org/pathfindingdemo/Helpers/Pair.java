@@ -26,4 +26,9 @@ public class Pair {
 
         return x == p.x && y == p.y;
     }
+
+    @Override
+    public int hashCode() {
+        return 31 * x + y;
+    }
 }
\ No newline at end of file